@@ -0,0 +1,97 @@
+package ir.maktab.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+
+/**
+ * Compares two JMH JSON result files, e.g. the results of the last release against the current build:
+ * <pre>
+ * mvn exec:exec@compare -Dbenchmark.baseline=results/baseline.json -Dbenchmark.threshold=10
+ * </pre>
+ * Each benchmark, mode and parameter set found in both files is printed with its score, p99 latency
+ * (sample mode) and allocation per operation ({@code -prof gc}). A result that got worse by more than the
+ * threshold percentage (10 by default) is a regression, and the exit status is 1 when there is any.
+ */
+public final class BenchmarkComparison {
+
+    // JMH prefixes profiler metrics with a middle dot
+    private static final String ALLOCATION = "\u00b7gc.alloc.rate.norm";
+
+    private static final String P99 = "99.0";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: BenchmarkComparison <baseline.json> <current.json> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, JsonNode> baseline = read(new File(args[0]));
+        Map<String, JsonNode> current = read(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s new%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            JsonNode beforeMetric = before.path("primaryMetric");
+            JsonNode afterMetric = after.path("primaryMetric");
+            String unit = afterMetric.path("scoreUnit").asText();
+
+            List<String> changes = new ArrayList<>();
+            boolean regressed = compare(changes, "score", beforeMetric.path("score"), afterMetric.path("score"),
+                    unit, higherIsBetter, threshold);
+            if (afterMetric.path("scorePercentiles").has(P99) && !higherIsBetter)
+                regressed |= compare(changes, "p99", beforeMetric.path("scorePercentiles").path(P99),
+                        afterMetric.path("scorePercentiles").path(P99), unit, false, threshold);
+            JsonNode allocation = after.path("secondaryMetrics").path(ALLOCATION);
+            if (!allocation.isMissingNode())
+                regressed |= compare(changes, "alloc", before.path("secondaryMetrics").path(ALLOCATION).path("score"),
+                        allocation.path("score"), allocation.path("scoreUnit").asText(), false, threshold);
+            if (regressed)
+                regressions++;
+            System.out.printf("%-90s %s%s%n", entry.getKey(), String.join("  ", changes), regressed ? "  REGRESSION" : "");
+        }
+        baseline.keySet().stream().filter(key -> !current.containsKey(key))
+                .forEach(key -> System.out.printf("%-90s removed%n", key));
+        System.out.printf("%d regression(s) beyond %.1f%%%n", regressions, threshold);
+        if (regressions > 0)
+            System.exit(1);
+    }
+
+    private static boolean compare(List<String> changes, String name, JsonNode before, JsonNode after, String unit,
+                                   boolean higherIsBetter, double threshold) {
+        if (!before.isNumber() || !after.isNumber())
+            return false;
+        double change = before.asDouble() == 0 ? 0 : (after.asDouble() - before.asDouble()) * 100 / before.asDouble();
+        changes.add(String.format("%s %.3f -> %.3f %s (%+.1f%%)", name, before.asDouble(), after.asDouble(), unit, change));
+        return higherIsBetter ? change < -threshold : change > threshold;
+    }
+
+    private static Map<String, JsonNode> read(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file))
+            results.put(key(result), result);
+        return results;
+    }
+
+    private static String key(JsonNode result) {
+        StringBuilder key = new StringBuilder(result.path("benchmark").asText()
+                .replace("ir.maktab.benchmark.", "")).append(' ').append(result.path("mode").asText());
+        Map<String, String> params = new TreeMap<>();
+        result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+        params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+        return key.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.FinalProjectPhase2Application;
+import ir.maktab.geo.GeoIndex;
+import ir.maktab.matching.ExpertMatchingEngine;
+import ir.maktab.search.SearchEngine;
+import ir.maktab.service.DashboardService;
+import ir.maktab.service.WalletService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * Boots the application without the web layer against an in-memory H2 database in PostgreSQL mode.
+ * Every default can be overridden with a system property, e.g.
+ * {@code -jvmArgsAppend "-Dspring.datasource.url=jdbc:postgresql://localhost:5432/bench"}.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName, Map<String, Object> properties) {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("spring.main.banner-mode", "off");
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+        return new SpringApplicationBuilder(FinalProjectPhase2Application.class)
+                .web(WebApplicationType.NONE)
+                .properties(defaults)
+                .run();
+    }
+
+    public static ConfigurableApplicationContext start(String databaseName) {
+        return start(databaseName, Map.of());
+    }
+
+    /**
+     * Redoes what the application does with the database once it is ready, for rows bulk loaded after
+     * that: the search, geo and matching indexes are rebuilt, the dashboard counters recounted and
+     * flushed, and the wallets of the new accounts opened.
+     */
+    public static void reload(ApplicationContext context) {
+        context.getBean(SearchEngine.class).rebuild();
+        context.getBean(GeoIndex.class).rebuild();
+        context.getBean(ExpertMatchingEngine.class).rebuild();
+        DashboardService dashboardService = context.getBean(DashboardService.class);
+        dashboardService.reconcile();
+        dashboardService.flush();
+        context.getBean(WalletService.class).postOpeningBalances();
+    }
+}
@@ -0,0 +1,39 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.*;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.UserType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+
+/**
+ * The minimum catalog an order needs: one customer, one accepted expert and one under duty.
+ */
+public record BenchmarkFixture(Long customerId, Long expertId, Long underDutyId, long basePrice) {
+
+    public static BenchmarkFixture create(EntityManagerFactory entityManagerFactory) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            User customerUser = User.builder().firstname("bench").lastname("customer").email("customer@bench.ir")
+                    .password("bench123").userType(UserType.CUSTOMER).build();
+            User expertUser = User.builder().firstname("bench").lastname("expert").email("expert@bench.ir")
+                    .password("bench123").userType(UserType.EXPERT).build();
+            Customer customer = Customer.builder().user(customerUser).build();
+            Expert expert = Expert.builder().status(ExpertStatus.ACCEPTED).score(0).user(expertUser).build();
+            Duty duty = Duty.builder().name("Home Appliances").build();
+            UnderDuty underDuty = UnderDuty.builder().name("Kitchen Appliances").basePrice(500_000L).duty(duty).build();
+            entityManager.persist(customerUser);
+            entityManager.persist(expertUser);
+            entityManager.persist(customer);
+            entityManager.persist(expert);
+            entityManager.persist(duty);
+            entityManager.persist(underDuty);
+            entityManager.getTransaction().commit();
+            return new BenchmarkFixture(customer.getId(), expert.getId(), underDuty.getId(), underDuty.getBasePrice());
+        } finally {
+            entityManager.close();
+        }
+    }
+}
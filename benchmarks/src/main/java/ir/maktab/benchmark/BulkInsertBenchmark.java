@@ -0,0 +1,118 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.*;
+import ir.maktab.entity.enumeration.OrderStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Inserts {@code rows} orders and {@code rows} offers in one transaction, with the pooled-lo sequence ids
+ * of the entities ({@code POOLED_LO}) or with the IDENTITY ids they had before ({@code IDENTITY}, written to
+ * {@link IdentityOrder} and {@link IdentityOffer}). Hibernate has to run every IDENTITY insert on its own to
+ * read the generated key back, so only the sequence ids gain from a JDBC batch size of 50.
+ * <p>
+ * It runs against in-memory H2 by default. Against PostgreSQL, whose round trips are what batching
+ * saves, run it with the module's {@code postgres} profile, which points the forked JVM at
+ * {@code bench.db.url}; the schema there is created for the trial and dropped after it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    private static final int FLUSH_INTERVAL = 1_000;
+
+    @Param({"IDENTITY", "POOLED_LO"})
+    public String ids;
+
+    @Param({"1", "50"})
+    public int jdbcBatchSize;
+
+    @Param("100000")
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("bulk_insert");
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        fixture = BenchmarkFixture.create(entityManagerFactory);
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        jdbcTemplate.execute("delete from offers");
+        jdbcTemplate.execute("delete from orders");
+        jdbcTemplate.execute("delete from identity_offers");
+        jdbcTemplate.execute("delete from identity_orders");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int insertOrdersAndOffers() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            entityManager.getTransaction().begin();
+            LocalDateTime dateAndTime = LocalDateTime.now().plusDays(1);
+            boolean identity = "IDENTITY".equals(ids);
+            for (int i = 1; i <= rows; i++) {
+                Customer customer = entityManager.getReference(Customer.class, fixture.customerId());
+                UnderDuty underDuty = entityManager.getReference(UnderDuty.class, fixture.underDutyId());
+                Expert expert = entityManager.getReference(Expert.class, fixture.expertId());
+                if (identity) {
+                    entityManager.persist(new IdentityOrder(customer, underDuty, 600_000L + i, "order " + i,
+                            "guilan, rasht", dateAndTime, OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS));
+                    entityManager.persist(new IdentityOffer(expert, 650_000L + i, dateAndTime.plusHours(1), "1 day"));
+                } else {
+                    entityManager.persist(Orders.builder()
+                            .customer(customer)
+                            .underDuty(underDuty)
+                            .proposedPrice(600_000L + i)
+                            .description("order " + i)
+                            .address("guilan, rasht")
+                            .dateAndTime(dateAndTime)
+                            .orderStatus(OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                            .build());
+                    entityManager.persist(Offers.builder()
+                            .expert(expert)
+                            .proposedPrice(650_000L + i)
+                            .suggestedTime(dateAndTime.plusHours(1))
+                            .durationOfWork("1 day")
+                            .build());
+                }
+                if (i % FLUSH_INTERVAL == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+            return rows;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
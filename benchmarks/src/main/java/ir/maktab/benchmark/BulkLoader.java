@@ -0,0 +1,42 @@
+package ir.maktab.benchmark;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+
+/**
+ * Streams generated rows into a table without going through JPA: with the COPY protocol on PostgreSQL
+ * and in JDBC batches on any other database.
+ */
+public interface BulkLoader {
+
+    /**
+     * Calls {@code writer} {@code count} times, each call adding any number of rows.
+     *
+     * @return the number of rows written
+     */
+    long load(String table, List<String> columns, int count, RowWriter writer);
+
+    static BulkLoader of(JdbcTemplate jdbcTemplate) {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equals(database) ? new PostgresCopyLoader(jdbcTemplate) : new JdbcBatchLoader(jdbcTemplate);
+    }
+
+    @FunctionalInterface
+    interface RowWriter {
+
+        void write(int index, Row row);
+    }
+
+    @FunctionalInterface
+    interface Row {
+
+        /**
+         * Adds a row with one value per column, in the order the columns were given.
+         */
+        void add(Object... values);
+    }
+}
@@ -0,0 +1,62 @@
+package ir.maktab.benchmark;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Recreates the schema of a database and fills it with a {@link MarketplaceDataset}, for trying the
+ * application or the load simulator against realistic volumes:
+ * <pre>
+ * mvn exec:exec@dataset -Ddataset.args="--url=jdbc:postgresql://localhost:5432/bench --username=postgres
+ *     --password=secret --orders=1000000 --seed=42"
+ * </pre>
+ * Without {@code --url} it fills an in-memory H2 database, which only tells how fast the rows load.
+ */
+public final class DatasetGenerator {
+
+    private DatasetGenerator() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int orders = Integer.parseInt(options.getOrDefault("orders", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.jpa.hibernate.ddl-auto", "create");
+        if (options.containsKey("url")) {
+            properties.put("spring.datasource.url", options.get("url"));
+            properties.put("spring.datasource.username", options.getOrDefault("username", "postgres"));
+            properties.put("spring.datasource.password", options.getOrDefault("password", ""));
+        }
+        try (ConfigurableApplicationContext context = BenchmarkContext.start("dataset", properties)) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            BulkLoader loader = BulkLoader.of(jdbcTemplate);
+            long started = System.nanoTime();
+            MarketplaceDataset dataset = MarketplaceDataset.create(jdbcTemplate, (table, columns, count, writer) -> {
+                long tableStarted = System.nanoTime();
+                long rows = loader.load(table, columns, count, writer);
+                double seconds = (System.nanoTime() - tableStarted) / 1e9;
+                System.out.printf("%-16s %,10d rows %6.1f s %,10.0f rows/s%n", table, rows, seconds, rows / seconds);
+                return rows;
+            }, orders, seed);
+            double seconds = (System.nanoTime() - started) / 1e9;
+            long reloadStarted = System.nanoTime();
+            BenchmarkContext.reload(context);
+            System.out.printf("indexes, counters and wallets rebuilt in %.1f s%n", (System.nanoTime() - reloadStarted) / 1e9);
+            System.out.printf("%d orders, %d customers, %d experts, %d offers, %d comments%n", dataset.orders(),
+                    dataset.customers(), dataset.experts(), dataset.offers(), dataset.comments());
+            System.out.printf("%d rows in %.1f s with %s, %.0f rows/s%n", dataset.rows(), seconds,
+                    loader.getClass().getSimpleName(), dataset.rows() / seconds);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.dto.ExpertCandidate;
+import ir.maktab.entity.Duty;
+import ir.maktab.entity.Expert;
+import ir.maktab.entity.UnderDuty;
+import ir.maktab.entity.User;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.UserType;
+import ir.maktab.matching.ExpertMatchingEngine;
+import ir.maktab.repository.UnderDutyRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Top-N accepted experts for an under duty: the in-memory inverted index against the JPA path that
+ * loads {@code UnderDuty.expertSet} and filters and sorts it in Java.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpertMatchingBenchmark {
+
+    private static final Comparator<Expert> RANKING = Comparator
+            .comparing((Expert expert) -> expert.getScore() == null ? 0 : expert.getScore()).reversed()
+            .thenComparing(Expert::getId);
+
+    @Param("100000")
+    public int experts;
+
+    @Param("100")
+    public int underDuties;
+
+    @Param("10")
+    public int limit;
+
+    private ConfigurableApplicationContext context;
+
+    private ExpertMatchingEngine expertMatchingEngine;
+
+    private UnderDutyRepository underDutyRepository;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private Long[] underDutyIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("expert_matching");
+        expertMatchingEngine = context.getBean(ExpertMatchingEngine.class);
+        underDutyRepository = context.getBean(UnderDutyRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        underDutyIds = seed(context.getBean(EntityManagerFactory.class));
+        expertMatchingEngine.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ExpertCandidate> matchingEngine() {
+        return expertMatchingEngine.findTopCandidates(randomUnderDuty(), limit);
+    }
+
+    @Benchmark
+    public List<Expert> jpaExpertSet() {
+        Long underDutyId = randomUnderDuty();
+        return readOnlyTransaction.execute(status -> underDutyRepository.findById(underDutyId).orElseThrow()
+                .getExpertSet().stream()
+                .filter(expert -> expert.getStatus() == ExpertStatus.ACCEPTED)
+                .sorted(RANKING)
+                .limit(limit)
+                .toList());
+    }
+
+    private Long randomUnderDuty() {
+        return underDutyIds[ThreadLocalRandom.current().nextInt(underDutyIds.length)];
+    }
+
+    private Long[] seed(EntityManagerFactory entityManagerFactory) {
+        Random random = new Random(42);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            Duty duty = Duty.builder().name("Home Appliances").build();
+            entityManager.persist(duty);
+            Long[] ids = new Long[underDuties];
+            for (int i = 0; i < underDuties; i++) {
+                UnderDuty underDuty = UnderDuty.builder().name("under duty " + i).basePrice(500_000L).duty(duty).build();
+                entityManager.persist(underDuty);
+                ids[i] = underDuty.getId();
+            }
+            ExpertStatus[] statuses = ExpertStatus.values();
+            for (int i = 1; i <= experts; i++) {
+                User user = User.builder().firstname("expert").lastname(String.valueOf(i)).email("expert" + i + "@bench.ir")
+                        .password("bench123").userType(UserType.EXPERT).build();
+                Set<UnderDuty> skills = new HashSet<>();
+                for (int j = 0; j < 3; j++)
+                    skills.add(entityManager.getReference(UnderDuty.class, ids[random.nextInt(underDuties)]));
+                Expert expert = Expert.builder()
+                        .status(statuses[random.nextInt(statuses.length)])
+                        .score(random.nextInt(100))
+                        .user(user)
+                        .underDutySet(skills)
+                        .build();
+                entityManager.persist(user);
+                entityManager.persist(expert);
+                if (i % 1_000 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+            return ids;
+        } finally {
+            entityManager.close();
+        }
+    }
+}
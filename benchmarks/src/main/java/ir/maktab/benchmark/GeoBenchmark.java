@@ -0,0 +1,81 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.geo.GeoGrid;
+import ir.maktab.geo.GeoMatch;
+import ir.maktab.geo.GeoPoint;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Radius and nearest-neighbour queries on the grid index, with everything spread over a city-sized
+ * area around Tehran. Open orders get one grid per under duty, as in {@code GeoIndex}; experts share
+ * one grid and are filtered by the under duty they serve.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeoBenchmark {
+
+    private static final double LATITUDE = 35.70;
+
+    private static final double LONGITUDE = 51.40;
+
+    @Param("1000000")
+    public int orders;
+
+    @Param("100000")
+    public int experts;
+
+    @Param("100")
+    public int underDuties;
+
+    @Param({"2", "10"})
+    public double radiusKm;
+
+    private GeoGrid[] openOrdersByUnderDuty;
+
+    private GeoGrid expertGrid;
+
+    private int[] underDutyByExpert;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        openOrdersByUnderDuty = new GeoGrid[underDuties];
+        for (int i = 0; i < underDuties; i++)
+            openOrdersByUnderDuty[i] = new GeoGrid(0.01);
+        for (long id = 1; id <= orders; id++)
+            openOrdersByUnderDuty[random.nextInt(underDuties)].put(id, randomPoint(random));
+        expertGrid = new GeoGrid(0.01);
+        underDutyByExpert = new int[experts + 1];
+        for (int id = 1; id <= experts; id++) {
+            underDutyByExpert[id] = random.nextInt(underDuties);
+            expertGrid.put((long) id, randomPoint(random));
+        }
+    }
+
+    @Benchmark
+    public List<GeoMatch> openOrdersWithin() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return openOrdersByUnderDuty[random.nextInt(underDuties)].within(randomPoint(random), radiusKm, id -> true, 100);
+    }
+
+    @Benchmark
+    public List<GeoMatch> nearestTenExperts() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int underDuty = random.nextInt(underDuties);
+        return expertGrid.nearest(randomPoint(random), 10, 50, id -> underDutyByExpert[(int) id] == underDuty);
+    }
+
+    private static GeoPoint randomPoint(Random random) {
+        return new GeoPoint(LATITUDE + random.nextDouble(-0.2, 0.2), LONGITUDE + random.nextDouble(-0.25, 0.25));
+    }
+}
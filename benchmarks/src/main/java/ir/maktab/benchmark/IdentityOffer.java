@@ -0,0 +1,39 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.Expert;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * The columns {@link BulkInsertBenchmark} writes of an offer, with the IDENTITY id the entities had before
+ * the pooled-lo sequence. Only the benchmark writes its table.
+ */
+@Entity
+@Table(name = "identity_offers")
+public class IdentityOffer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    private Expert expert;
+
+    private Long proposedPrice;
+
+    private LocalDateTime suggestedTime;
+
+    private String durationOfWork;
+
+    protected IdentityOffer() {
+    }
+
+    public IdentityOffer(Expert expert, Long proposedPrice, LocalDateTime suggestedTime, String durationOfWork) {
+        this.expert = expert;
+        this.proposedPrice = proposedPrice;
+        this.suggestedTime = suggestedTime;
+        this.durationOfWork = durationOfWork;
+    }
+}
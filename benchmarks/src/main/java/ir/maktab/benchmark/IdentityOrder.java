@@ -0,0 +1,53 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.Customer;
+import ir.maktab.entity.UnderDuty;
+import ir.maktab.entity.enumeration.OrderStatus;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * The columns {@link BulkInsertBenchmark} writes of an order, with the IDENTITY id the entities had before
+ * the pooled-lo sequence. Only the benchmark writes its table.
+ */
+@Entity
+@Table(name = "identity_orders")
+public class IdentityOrder {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne
+    private Customer customer;
+
+    @ManyToOne
+    private UnderDuty underDuty;
+
+    private Long proposedPrice;
+
+    private String description;
+
+    private String address;
+
+    private LocalDateTime dateAndTime;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus orderStatus;
+
+    protected IdentityOrder() {
+    }
+
+    public IdentityOrder(Customer customer, UnderDuty underDuty, Long proposedPrice, String description,
+                         String address, LocalDateTime dateAndTime, OrderStatus orderStatus) {
+        this.customer = customer;
+        this.underDuty = underDuty;
+        this.proposedPrice = proposedPrice;
+        this.description = description;
+        this.address = address;
+        this.dateAndTime = dateAndTime;
+        this.orderStatus = orderStatus;
+    }
+}
@@ -0,0 +1,41 @@
+package ir.maktab.benchmark;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Inserts the rows with a prepared statement in batches of 10,000.
+ */
+public class JdbcBatchLoader implements BulkLoader {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcBatchLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public long load(String table, List<String> columns, int count, RowWriter writer) {
+        String sql = "insert into " + table + " (" + String.join(", ", columns) + ") values ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        long rows = 0;
+        for (int i = 0; i < count; i++) {
+            writer.write(i, batch::add);
+            if (batch.size() >= BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                rows += batch.size();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            jdbcTemplate.batchUpdate(sql, batch);
+        return rows + batch.size();
+    }
+}
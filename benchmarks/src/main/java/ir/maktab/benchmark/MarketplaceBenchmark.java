@@ -0,0 +1,137 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.*;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.repository.OffersRepository;
+import ir.maktab.repository.OrdersRepository;
+import ir.maktab.service.*;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+
+/**
+ * The marketplace hot paths against a {@link MarketplaceDataset} of 10k, 100k and 1M orders: saving an
+ * order, saving an offer (with its base price and time checks), loading the offers of an order and the
+ * open orders of an under duty, and logging in. Throughput mode reports operations per millisecond and
+ * sample mode the latency percentiles; run with {@code -prof gc} for the allocation rate and
+ * {@code -rf json} to keep the results for {@link BenchmarkComparison}, as the module's exec
+ * configuration does by default.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class MarketplaceBenchmark {
+
+    private static final int SAMPLED_ORDERS = 1_000;
+
+    @Param({"10000", "100000", "1000000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+
+    private OrdersService ordersService;
+
+    private OffersService offersService;
+
+    private UserService userService;
+
+    private OffersRepository offersRepository;
+
+    private OrdersRepository ordersRepository;
+
+    private MarketplaceDataset dataset;
+
+    private Customer customer;
+
+    private Expert expert;
+
+    private List<UnderDuty> underDuties;
+
+    private Orders[] openOrders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // keep the settlement run from paying the DONE orders while we measure
+        context = BenchmarkContext.start("marketplace", Map.of("app.settlement.interval-ms", "86400000"));
+        ordersService = context.getBean(OrdersService.class);
+        offersService = context.getBean(OffersService.class);
+        userService = context.getBean(UserService.class);
+        offersRepository = context.getBean(OffersRepository.class);
+        ordersRepository = context.getBean(OrdersRepository.class);
+        dataset = MarketplaceDataset.create(context.getBean(JdbcTemplate.class), orders, 42);
+        BenchmarkContext.reload(context);
+
+        customer = context.getBean(CustomerService.class).findById(1L);
+        expert = context.getBean(ExpertService.class).findById(1L);
+        UnderDutyService underDutyService = context.getBean(UnderDutyService.class);
+        underDuties = LongStream.rangeClosed(1, dataset.underDuties())
+                .mapToObj(underDutyService::findById).toList();
+        openOrders = new Orders[Math.min(SAMPLED_ORDERS, dataset.openOrderIds().length)];
+        for (int i = 0; i < openOrders.length; i++)
+            openOrders[i] = ordersService.findById(dataset.openOrderIds()[i * (dataset.openOrderIds().length / openOrders.length)]);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Orders saveOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return ordersService.save(Orders.builder()
+                .customer(customer)
+                .underDuty(underDuties.get(random.nextInt(underDuties.size())))
+                .proposedPrice(dataset.basePrice() + random.nextInt(500_000))
+                .description("Repairing a washing machine")
+                .address("guilan, rasht")
+                .dateAndTime(LocalDateTime.now().plusDays(1))
+                .orderStatus(OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                .build());
+    }
+
+    @Benchmark
+    public Offers saveOffer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return offersService.save(Offers.builder()
+                .expert(expert)
+                .proposedPrice(dataset.basePrice() + random.nextInt(500_000))
+                .suggestedTime(LocalDateTime.now().plusDays(40))
+                .durationOfWork("1 day")
+                .build(), openOrders[random.nextInt(openOrders.length)]);
+    }
+
+    @Benchmark
+    public List<Offers> findOffersOfOrder() {
+        long[] ids = dataset.openOrderIds();
+        return offersRepository.findAllByOrderId(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    public List<Orders> findOpenOrdersOfUnderDuty() {
+        return ordersRepository.findAllByUnderDutyIdAndOrderStatus(
+                ThreadLocalRandom.current().nextLong(dataset.underDuties()) + 1);
+    }
+
+    /**
+     * Logs out again so the session store stays at its steady-state size instead of hitting its limit.
+     */
+    @Benchmark
+    public String login() {
+        long userId = ThreadLocalRandom.current().nextLong(dataset.customers() + dataset.experts()) + 1;
+        String token = userService.login(MarketplaceDataset.email(userId), MarketplaceDataset.PASSWORD);
+        userService.logout(token);
+        return token;
+    }
+}
@@ -0,0 +1,221 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.entity.enumeration.UserType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * A marketplace of {@code orders} orders written with a {@link BulkLoader}, far faster than going through
+ * JPA for millions of rows. There is one customer per 10 orders, one accepted expert per 100 orders and
+ * 500 under duties in 10 duties, and the load is skewed the way a real marketplace is: orders follow a
+ * Zipf distribution over under duties (hot categories) and customers, and the orders an expert carries
+ * out over experts (prolific experts), the lowest ids being the busiest. A tenth of the orders are open
+ * for offers, half of them still waiting for the first offer and half with three offers; the rest are spread over the later statuses, each with the offer
+ * of its expert, and 60% of the done and paid ones have a comment that the expert's rating adds up. The
+ * same {@code seed} always gives the same rows. Every user logs in with {@link #email(long)} and
+ * {@link #PASSWORD}.
+ */
+public record MarketplaceDataset(int orders, int customers, int experts, int underDuties, long[] openOrderIds,
+                                 long basePrice, long offers, long comments, long rows) {
+
+    public static final String PASSWORD = "bench123";
+
+    private static final int ORDERS_PER_CUSTOMER = 10;
+
+    private static final int ORDERS_PER_EXPERT = 100;
+
+    private static final int DUTIES = 10;
+
+    private static final int UNDER_DUTIES = 500;
+
+    private static final int OFFERS_PER_OPEN_ORDER = 3;
+
+    private static final int MAX_UNDER_DUTIES_PER_EXPERT = 3;
+
+    private static final double OPEN_FRACTION = 0.1;
+
+    private static final double COMMENTED_FRACTION = 0.6;
+
+    private static final double UNDER_DUTY_SKEW = 1.1;
+
+    private static final double CUSTOMER_SKEW = 0.8;
+
+    private static final double EXPERT_SKEW = 1.0;
+
+    private static final int RATING_BATCH_SIZE = 10_000;
+
+    private static final OrderStatus[] CLOSED_STATUSES = {
+            OrderStatus.WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE, OrderStatus.STARTED,
+            OrderStatus.DONE, OrderStatus.PAID};
+
+    // mostly satisfied customers
+    private static final int[] SCORES = {1, 2, 2, 3, 3, 3, 4, 4, 4, 4, 4, 4, 5, 5, 5, 5, 5, 5, 5, 5};
+
+    private static final String[] COMMENTS = {"Great work, on time.", "Fixed it quickly.", "Fair price.",
+            "Came late but did a good job.", "Would hire again.", "Had to call twice."};
+
+    public static String email(long userId) {
+        return "user" + userId + "@bench.ir";
+    }
+
+    public static MarketplaceDataset create(JdbcTemplate jdbcTemplate, int orders, long seed) {
+        return create(jdbcTemplate, BulkLoader.of(jdbcTemplate), orders, seed);
+    }
+
+    public static MarketplaceDataset create(JdbcTemplate jdbcTemplate, BulkLoader loader, int orders, long seed) {
+        Random random = new Random(seed);
+        int customers = Math.max(1, orders / ORDERS_PER_CUSTOMER);
+        int experts = Math.max(1, orders / ORDERS_PER_EXPERT);
+        long basePrice = 500_000L;
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp registered = Timestamp.valueOf(now.minusYears(1));
+        ZipfSampler underDutySampler = new ZipfSampler(UNDER_DUTIES, UNDER_DUTY_SKEW);
+        ZipfSampler customerSampler = new ZipfSampler(customers, CUSTOMER_SKEW);
+        ZipfSampler expertSampler = new ZipfSampler(experts, EXPERT_SKEW);
+        long rows = 0;
+
+        rows += loader.load("users", List.of("id", "firstname", "lastname", "email", "password", "register_date",
+                "user_type"), customers + experts, (i, row) -> {
+            long id = i + 1;
+            row.add(id, "bench", "user" + id, email(id), PASSWORD, registered,
+                    (i < customers ? UserType.CUSTOMER : UserType.EXPERT).name());
+        });
+        rows += loader.load("customer", List.of("id", "validity", "user_id"), customers,
+                (i, row) -> row.add(i + 1L, Long.MAX_VALUE / 2, i + 1L));
+        rows += loader.load("expert", List.of("id", "status", "score", "validity", "rating_count", "rating_sum",
+                "user_id"), experts, (i, row) -> row.add(i + 1L, ExpertStatus.ACCEPTED.name(), 0, 0L, 0L, 0L,
+                customers + i + 1L));
+        rows += loader.load("duty", List.of("id", "name"), DUTIES, (i, row) -> row.add(i + 1L, "duty " + (i + 1)));
+        rows += loader.load("under_duty", List.of("id", "name", "base_price", "explanation", "duty_id"), UNDER_DUTIES,
+                (i, row) -> row.add(i + 1L, "under duty " + (i + 1), basePrice, "benchmark", i % DUTIES + 1L));
+        rows += loader.load("expert_underduty", List.of("expert_id", "under_duty_id"), experts, (i, row) -> {
+            long[] chosen = new long[1 + random.nextInt(MAX_UNDER_DUTIES_PER_EXPERT)];
+            for (int j = 0; j < chosen.length; j++) {
+                chosen[j] = underDutySampler.sampleId(random);
+                for (int k = 0; k < j; k++)
+                    if (chosen[k] == chosen[j])
+                        chosen[j] = 0;
+                if (chosen[j] != 0)
+                    row.add(i + 1L, chosen[j]);
+            }
+        });
+
+        // what the offers and comments need to know about each order
+        byte[] statuses = new byte[orders];
+        int[] orderCustomers = new int[orders];
+        int[] orderExperts = new int[orders];
+        int[] orderDays = new int[orders];
+        List<Long> openOrderIds = new ArrayList<>();
+        rows += loader.load("orders", List.of("id", "address", "date_and_time", "description", "order_status",
+                "proposed_price", "version", "customer_id", "expert_id", "under_duty_id"), orders, (i, row) -> {
+            long id = i + 1;
+            boolean open = random.nextDouble() < OPEN_FRACTION;
+            OrderStatus status = open
+                    ? (random.nextBoolean() ? OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS : OrderStatus.WAITING_FOR_SPECIALIST_SELECTION)
+                    : CLOSED_STATUSES[random.nextInt(CLOSED_STATUSES.length)];
+            statuses[i] = (byte) status.ordinal();
+            orderCustomers[i] = customerSampler.sample(random) + 1;
+            orderExperts[i] = open ? 0 : expertSampler.sample(random) + 1;
+            // open orders are for the coming month, the others from the past year
+            orderDays[i] = open ? 1 + random.nextInt(30) : -1 - random.nextInt(365);
+            if (open)
+                openOrderIds.add(id);
+            row.add(id, "guilan, rasht", Timestamp.valueOf(now.plusDays(orderDays[i])), "order " + id,
+                    status.name(), basePrice + random.nextInt(500_000), 0L, (long) orderCustomers[i],
+                    open ? null : (long) orderExperts[i], underDutySampler.sampleId(random));
+        });
+
+        List<String> offerColumns = List.of("id", "duration_of_work", "proposed_price", "register_date_and_time",
+                "suggested_time", "expert_id");
+        long[] offerIds = {0};
+        long offers = loader.load("offers", offerColumns, orders, (i, row) -> {
+            if (orderExperts[i] == 0) {
+                for (int j = 0; j < offerCount(statuses[i]); j++)
+                    row.add(++offerIds[0], "1 day", basePrice + random.nextInt(500_000), Timestamp.valueOf(now),
+                            Timestamp.valueOf(now.plusDays(31)), expertSampler.sampleId(random));
+            } else {
+                LocalDateTime dateAndTime = now.plusDays(orderDays[i]);
+                row.add(++offerIds[0], "1 day", basePrice + random.nextInt(500_000),
+                        Timestamp.valueOf(dateAndTime.minusDays(1)), Timestamp.valueOf(dateAndTime), (long) orderExperts[i]);
+            }
+        });
+        rows += offers;
+        long[] nextOffer = {0};
+        rows += loader.load("orders_offers", List.of("orders_id", "offers_id"), orders, (i, row) -> {
+            int count = orderExperts[i] == 0 ? offerCount(statuses[i]) : 1;
+            for (int j = 0; j < count; j++)
+                row.add(i + 1L, ++nextOffer[0]);
+        });
+        // the one offer of an assigned order is the one its customer accepted
+        jdbcTemplate.update("update orders o set accepted_offer_id = (select min(l.offers_id) from orders_offers l " +
+                "where l.orders_id = o.id) where o.expert_id is not null");
+
+        long[] ratingCounts = new long[experts + 1];
+        long[] ratingSums = new long[experts + 1];
+        long[] commentIds = {0};
+        long comments = loader.load("comments", List.of("id", "content", "score", "customer_id", "expert_id"), orders,
+                (i, row) -> {
+                    OrderStatus status = OrderStatus.values()[statuses[i]];
+                    if ((status != OrderStatus.DONE && status != OrderStatus.PAID) || random.nextDouble() >= COMMENTED_FRACTION)
+                        return;
+                    int score = SCORES[random.nextInt(SCORES.length)];
+                    ratingCounts[orderExperts[i]]++;
+                    ratingSums[orderExperts[i]] += score;
+                    row.add(++commentIds[0], COMMENTS[random.nextInt(COMMENTS.length)], score,
+                            (long) orderCustomers[i], (long) orderExperts[i]);
+                });
+        rows += comments;
+        updateRatings(jdbcTemplate, ratingCounts, ratingSums);
+
+        restartSequence(jdbcTemplate, "users_seq", customers + experts);
+        restartSequence(jdbcTemplate, "customer_seq", customers);
+        restartSequence(jdbcTemplate, "expert_seq", experts);
+        restartSequence(jdbcTemplate, "duty_seq", DUTIES);
+        restartSequence(jdbcTemplate, "under_duty_seq", UNDER_DUTIES);
+        restartSequence(jdbcTemplate, "orders_seq", orders);
+        restartSequence(jdbcTemplate, "offers_seq", offers);
+        restartSequence(jdbcTemplate, "comments_seq", comments);
+
+        return new MarketplaceDataset(orders, customers, experts, UNDER_DUTIES,
+                openOrderIds.stream().mapToLong(Long::longValue).toArray(), basePrice, offers, comments, rows);
+    }
+
+    /**
+     * Sets the rating of every expert with comments the way adding them one by one would have.
+     */
+    private static void updateRatings(JdbcTemplate jdbcTemplate, long[] ratingCounts, long[] ratingSums) {
+        String sql = "update expert set rating_count = ?, rating_sum = ?, score = ? where id = ?";
+        List<Object[]> batch = new ArrayList<>(RATING_BATCH_SIZE);
+        for (int expert = 1; expert < ratingCounts.length; expert++) {
+            if (ratingCounts[expert] == 0)
+                continue;
+            batch.add(new Object[]{ratingCounts[expert], ratingSums[expert],
+                    (int) Math.round((double) ratingSums[expert] / ratingCounts[expert]), (long) expert});
+            if (batch.size() == RATING_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    /**
+     * Offers of an open order: none while it waits for the first one.
+     */
+    private static int offerCount(byte status) {
+        return status == OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS.ordinal() ? 0 : OFFERS_PER_OPEN_ORDER;
+    }
+
+    private static void restartSequence(JdbcTemplate jdbcTemplate, String sequence, long lastId) {
+        jdbcTemplate.execute("alter sequence " + sequence + " restart with " + (lastId + 1));
+    }
+}
@@ -0,0 +1,125 @@
+package ir.maktab.benchmark;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.metrics.CachingRepositoryMetricsListener;
+import ir.maktab.metrics.ServiceMetricsInterceptor;
+import ir.maktab.repository.DutyRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Cost of the metrics added to every call: a service method behind the {@code @Timed} proxy against
+ * the same method called directly, and the recording of one repository invocation, each next to the
+ * stock Micrometer aspect and Spring Boot listener that build their meter on every call. All record
+ * into a Prometheus registry with percentile histograms, as in production. The difference between
+ * {@code timedCall} and {@code directCall} is the per-call overhead of a service timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    private PricingService direct;
+
+    private PricingService timed;
+
+    private PricingService stockTimed;
+
+    private MetricsRepositoryMethodInvocationListener repositoryListener;
+
+    private MetricsRepositoryMethodInvocationListener stockRepositoryListener;
+
+    private RepositoryMethodInvocation repositoryInvocation;
+
+    private long price;
+
+    @Setup(Level.Trial)
+    public void setUp() throws NoSuchMethodException {
+        PrometheusMeterRegistry meterRegistry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        meterRegistry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentilesHistogram(true).build().merge(config);
+            }
+        });
+
+        direct = new PricingService();
+        ProxyFactory proxyFactory = new ProxyFactory(new PricingService());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new ServiceMetricsInterceptor(meterRegistry));
+        timed = (PricingService) proxyFactory.getProxy();
+        AspectJProxyFactory aspectProxyFactory = new AspectJProxyFactory(new PricingService());
+        aspectProxyFactory.setProxyTargetClass(true);
+        aspectProxyFactory.addAspect(new TimedAspect(meterRegistry));
+        stockTimed = aspectProxyFactory.getProxy();
+
+        repositoryListener = new CachingRepositoryMetricsListener(() -> meterRegistry,
+                new DefaultRepositoryTagsProvider(), "spring.data.repository.invocations", AutoTimer.ENABLED);
+        stockRepositoryListener = new MetricsRepositoryMethodInvocationListener(() -> meterRegistry,
+                new DefaultRepositoryTagsProvider(), "spring.data.repository.invocations", AutoTimer.ENABLED);
+        repositoryInvocation = new RepositoryMethodInvocation(DutyRepository.class,
+                DutyRepository.class.getMethod("findById", Object.class), new RepositoryMethodInvocationResult() {
+            @Override
+            public State getState() {
+                return State.SUCCESS;
+            }
+
+            @Override
+            public Throwable getError() {
+                return null;
+            }
+        }, 250_000);
+    }
+
+    @Benchmark
+    public long directCall() {
+        return direct.price(++price);
+    }
+
+    @Benchmark
+    public long timedCall() {
+        return timed.price(++price);
+    }
+
+    @Benchmark
+    public long stockTimedCall() {
+        return stockTimed.price(++price);
+    }
+
+    @Benchmark
+    public void repositoryInvocation() {
+        repositoryListener.afterInvocation(repositoryInvocation);
+    }
+
+    @Benchmark
+    public void stockRepositoryInvocation() {
+        stockRepositoryListener.afterInvocation(repositoryInvocation);
+    }
+
+    @Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
+    public static class PricingService {
+
+        public long price(long basePrice) {
+            return basePrice * 110 / 100;
+        }
+    }
+}
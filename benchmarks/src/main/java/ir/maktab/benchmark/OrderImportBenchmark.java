@@ -0,0 +1,91 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.dto.OrderImportReport;
+import ir.maktab.service.OrderImportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Imports a generated CSV file of {@code rows} orders. The file is produced row by row while it is read,
+ * so neither side holds it in memory; rows/sec is {@code rows / score}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OrderImportBenchmark {
+
+    @Param({"100", "500", "2000"})
+    public int batchSize;
+
+    @Param("100000")
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+
+    private OrderImportService orderImportService;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("order_import", Map.of("app.order-import.batch-size", batchSize));
+        orderImportService = context.getBean(OrderImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        fixture = BenchmarkFixture.create(context.getBean(EntityManagerFactory.class));
+    }
+
+    @TearDown(Level.Iteration)
+    public void cleanUp() {
+        jdbcTemplate.execute("delete from orders");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderImportReport importCsv() {
+        return orderImportService.importCsv(csv());
+    }
+
+    private InputStream csv() {
+        String dateAndTime = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.MINUTES).toString();
+        String prefix = fixture.customerId() + "," + fixture.underDutyId() + ",";
+        return new SequenceInputStream(new Enumeration<>() {
+
+            private int row = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return row < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                String line = row++ < 0
+                        ? "customerId,underDutyId,proposedPrice,dateAndTime,address,description\n"
+                        : prefix + (fixture.basePrice() + row) + "," + dateAndTime + ",\"guilan, rasht\",order " + row + "\n";
+                return new ByteArrayInputStream(line.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+}
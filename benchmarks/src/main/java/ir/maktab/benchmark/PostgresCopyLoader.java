@@ -0,0 +1,136 @@
+package ir.maktab.benchmark;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+
+/**
+ * Streams the rows to PostgreSQL with {@code COPY ... FROM STDIN} in its text format, a megabyte at a
+ * time, so the whole table is one statement with no per-row round trip or bind. The table's foreign keys
+ * and the indexes that back no constraint are dropped for the copy and recreated after it, which checks
+ * and builds each of them in one pass instead of row by row. Dropping, copying and recreating run in one
+ * transaction: a copy or a constraint check that fails rolls back the drops with it, so the table never
+ * loses its keys or indexes. The table is locked against other sessions until the load commits.
+ */
+public class PostgresCopyLoader implements BulkLoader {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public PostgresCopyLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(
+                Objects.requireNonNull(jdbcTemplate.getDataSource())));
+    }
+
+    @Override
+    public long load(String table, List<String> columns, int count, RowWriter writer) {
+        Long rows = transactionTemplate.execute(status -> {
+            List<String> restore = new ArrayList<>();
+            List<String> drop = new ArrayList<>();
+            jdbcTemplate.query("select pg_get_indexdef(x.indexrelid), i.relname from pg_index x " +
+                    "join pg_class i on i.oid= x.indexrelid where x.indrelid= ?::regclass " +
+                    "and not exists (select 1 from pg_constraint c where c.conindid= x.indexrelid)", (RowCallbackHandler) rs -> {
+                restore.add(rs.getString(1));
+                drop.add("drop index " + rs.getString(2));
+            }, table);
+            jdbcTemplate.query("select conname, pg_get_constraintdef(oid) from pg_constraint " +
+                    "where conrelid= ?::regclass and contype= 'f'", (RowCallbackHandler) rs -> {
+                restore.add("alter table " + table + " add constraint " + rs.getString(1) + " " + rs.getString(2));
+                drop.add("alter table " + table + " drop constraint " + rs.getString(1));
+            }, table);
+            drop.forEach(jdbcTemplate::execute);
+            long copied = copy(table, columns, count, writer);
+            restore.forEach(jdbcTemplate::execute);
+            return copied;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    /**
+     * Runs on the connection of the surrounding transaction, so the rows commit or roll back with it.
+     */
+    private long copy(String table, List<String> columns, int count, RowWriter writer) {
+        String sql = "copy " + table + " (" + String.join(", ", columns) + ") from stdin";
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql);
+            try {
+                CopyRow row = new CopyRow(columns.size());
+                for (int i = 0; i < count; i++) {
+                    writer.write(i, row);
+                    if (row.buffer.length() >= BUFFER_SIZE)
+                        row.flush(copyIn);
+                }
+                row.flush(copyIn);
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive())
+                    copyIn.cancelCopy();
+            }
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    private static class CopyRow implements Row {
+
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 4096);
+
+        private final int columns;
+
+        private CopyRow(int columns) {
+            this.columns = columns;
+        }
+
+        @Override
+        public void add(Object... values) {
+            if (values.length != columns)
+                throw new IllegalArgumentException("expected " + columns + " values but got " + values.length);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0)
+                    buffer.append('\t');
+                append(values[i]);
+            }
+            buffer.append('\n');
+        }
+
+        private void append(Object value) {
+            if (value == null) {
+                buffer.append("\\N");
+            } else if (value instanceof Number) {
+                buffer.append(value);
+            } else {
+                String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    char c = text.charAt(i);
+                    switch (c) {
+                        case '\\' -> buffer.append("\\\\");
+                        case '\t' -> buffer.append("\\t");
+                        case '\n' -> buffer.append("\\n");
+                        case '\r' -> buffer.append("\\r");
+                        default -> buffer.append(c);
+                    }
+                }
+            }
+        }
+
+        private void flush(CopyIn copyIn) throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.search.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Keyword search over a synthetic corpus of order descriptions and addresses. Word frequencies are
+ * skewed so a few words appear in most documents, which is the expensive case for intersections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final String[] COMMON = {"تعمیر", "repair", "نصب", "install", "تهران", "tehran", "سرویس",
+            "service", "فوری", "urgent", "منزل", "home", "کولر", "cooler", "یخچال", "fridge"};
+
+    @Param("1000000")
+    public int documents;
+
+    @Param("100")
+    public int underDuties;
+
+    @Param("20")
+    public int limit;
+
+    private InvertedIndex index;
+
+    private String[] rareWords;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        rareWords = new String[50_000];
+        for (int i = 0; i < rareWords.length; i++)
+            rareWords[i] = "w" + Integer.toString(i, 36) + (i % 2 == 0 ? "" : "ک");
+        index = new InvertedIndex();
+        StringBuilder text = new StringBuilder();
+        for (long id = 1; id <= documents; id++) {
+            text.setLength(0);
+            for (int j = 0; j < 6; j++) {
+                // half of the words come from a small, frequent vocabulary
+                String word = random.nextBoolean()
+                        ? COMMON[(int) Math.min(COMMON.length - 1, Math.abs(random.nextGaussian()) * 4)]
+                        : rareWords[random.nextInt(rareWords.length)];
+                text.append(word).append(' ');
+            }
+            index.put(id, (long) random.nextInt(underDuties), text.toString(), "guilan, rasht");
+        }
+    }
+
+    @Benchmark
+    public List<Long> commonTerms() {
+        return index.search("repair tehran", null, limit);
+    }
+
+    @Benchmark
+    public List<Long> rareTermAndPrefix() {
+        return index.search(rareWord() + " ta", null, limit);
+    }
+
+    @Benchmark
+    public List<Long> shortPrefix() {
+        return index.search("w1", null, limit);
+    }
+
+    @Benchmark
+    public List<Long> commonTermInUnderDuty() {
+        return index.search("urgent cool", (long) ThreadLocalRandom.current().nextInt(underDuties), limit);
+    }
+
+    @Benchmark
+    public List<Long> noMatch() {
+        return index.search("fridge " + rareWord() + " zzz", null, limit);
+    }
+
+    private String rareWord() {
+        return rareWords[ThreadLocalRandom.current().nextInt(rareWords.length)];
+    }
+}
@@ -0,0 +1,54 @@
+package ir.maktab.benchmark;
+
+import ir.maktab.dto.WalletAccount;
+import ir.maktab.service.WalletService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Settlements per second through the ledger. Each settlement posts a debit to a random customer and a
+ * credit to a random expert, so fewer accounts means more threads contending for the same stripes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WalletBenchmark {
+
+    @Param({"100", "10000"})
+    public int accounts;
+
+    private final AtomicLong orderIds = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+
+    private WalletService walletService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("wallet");
+        walletService = context.getBean(WalletService.class);
+        for (long i = 1; i <= accounts; i++)
+            walletService.deposit(WalletAccount.customer(i), Long.MAX_VALUE / (2L * accounts), "deposit:" + i);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void settle() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        walletService.settle(orderIds.incrementAndGet(), random.nextLong(1, accounts + 1),
+                random.nextLong(1, accounts + 1), 1_000L);
+    }
+}
@@ -0,0 +1,38 @@
+package ir.maktab.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+
+/**
+ * Draws ranks from {@code 0} to {@code size - 1}, each with a probability proportional to
+ * {@code 1 / (rank + 1)^exponent}. Rank 0 is drawn most often, so mapping rank {@code r} to id
+ * {@code r + 1} gives a few hot ids over a long tail; an exponent of 0 is uniform.
+ */
+public final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int size, double exponent) {
+        if (size < 1)
+            throw new IllegalArgumentException("size must be positive: " + size);
+        cumulative = new double[size];
+        double total = 0;
+        for (int rank = 0; rank < size; rank++) {
+            total += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = total;
+        }
+    }
+
+    public int sample(Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return Math.min(rank >= 0 ? rank : -rank - 1, cumulative.length - 1);
+    }
+
+    /**
+     * Same as {@link #sample(Random)}, as a one-based id.
+     */
+    public long sampleId(Random random) {
+        return sample(random) + 1L;
+    }
+}
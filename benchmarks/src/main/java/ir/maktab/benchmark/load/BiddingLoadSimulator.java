@@ -0,0 +1,317 @@
+package ir.maktab.benchmark.load;
+
+import ir.maktab.benchmark.BenchmarkContext;
+import ir.maktab.benchmark.MarketplaceDataset;
+import ir.maktab.benchmark.load.OpenLoopDispatcher.Arrivals;
+import ir.maktab.entity.*;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.service.*;
+import org.HdrHistogram.Histogram;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+
+/**
+ * Drives the whole bidding lifecycle through the services at a fixed arrival rate, against an in-memory
+ * {@link MarketplaceDataset}. Customers create orders; experts poll the open orders of an under duty and
+ * submit {@code bidders} offers per order; once bidding on an order is over its customer selects the first
+ * offer, and the order is started and done when the offer's time comes. Every step is its own stream of
+ * arrivals (see {@link OpenLoopDispatcher}), so raising {@code --rate} or {@code --bidders} until the
+ * response times take off shows how much bidding the marketplace sustains:
+ * <pre>
+ * mvn exec:exec@load -Dload.args="--rate=20 --bidders=5 --duration=60"
+ * </pre>
+ * Prints a progress line per interval and a latency table per operation at the end, and writes the
+ * percentile distributions as {@code .hgrm} files to {@code --hgrm-dir}. The database defaults of
+ * {@link BenchmarkContext}, including the connection pool size, can be overridden with system properties.
+ */
+public final class BiddingLoadSimulator {
+
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    private final LoadOptions options;
+
+    private final OrdersService ordersService;
+
+    private final OffersService offersService;
+
+    private final List<Customer> customers;
+
+    private final List<Expert> experts;
+
+    private final List<UnderDuty> underDuties;
+
+    private final long basePrice;
+
+    private final Queue<Bidding> biddings = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Assignment> selections = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Assignment> starts = new ConcurrentLinkedQueue<>();
+
+    private final Queue<Assignment> completions = new ConcurrentLinkedQueue<>();
+
+    private BiddingLoadSimulator(ConfigurableApplicationContext context, LoadOptions options) {
+        this.options = options;
+        this.ordersService = context.getBean(OrdersService.class);
+        this.offersService = context.getBean(OffersService.class);
+        MarketplaceDataset dataset = MarketplaceDataset.create(context.getBean(JdbcTemplate.class), options.orders(),
+                options.seed());
+        BenchmarkContext.reload(context);
+        CustomerService customerService = context.getBean(CustomerService.class);
+        ExpertService expertService = context.getBean(ExpertService.class);
+        UnderDutyService underDutyService = context.getBean(UnderDutyService.class);
+        this.customers = LongStream.rangeClosed(1, Math.min(dataset.customers(), 1_000))
+                .mapToObj(customerService::findById).toList();
+        this.experts = LongStream.rangeClosed(1, Math.min(dataset.experts(), 1_000))
+                .mapToObj(expertService::findById).toList();
+        this.underDuties = LongStream.rangeClosed(1, dataset.underDuties())
+                .mapToObj(underDutyService::findById).toList();
+        this.basePrice = dataset.basePrice();
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LoadOptions options = LoadOptions.parse(args);
+        // keep the settlement run from paying the DONE orders while we measure, and count lost bids
+        // instead of logging each one
+        try (ConfigurableApplicationContext context = BenchmarkContext.start("load", Map.of(
+                "app.settlement.interval-ms", "86400000",
+                "logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch", "OFF"))) {
+            new BiddingLoadSimulator(context, options).run();
+        }
+    }
+
+    private void run() throws InterruptedException, IOException {
+        OperationStats createOrder = new OperationStats("createOrder");
+        OperationStats pollOrders = new OperationStats("pollOpenOrders");
+        OperationStats submitOffer = new OperationStats("submitOffer");
+        OperationStats selectOffer = new OperationStats("selectOffer");
+        OperationStats startOrder = new OperationStats("startOrder");
+        OperationStats finishOrder = new OperationStats("finishOrder");
+        List<OperationStats> operations = List.of(createOrder, pollOrders, submitOffer, selectOffer, startOrder,
+                finishOrder);
+        OpenLoopDispatcher dispatcher = new OpenLoopDispatcher(List.of(
+                new Arrivals(createOrder, options.rate(), this::createOrder),
+                new Arrivals(pollOrders, options.pollRate(), this::pollOpenOrders),
+                new Arrivals(submitOffer, options.rate() * options.bidders(), this::submitOffer),
+                new Arrivals(selectOffer, options.rate(), this::selectOffer),
+                new Arrivals(startOrder, options.rate(), this::startOrder),
+                new Arrivals(finishOrder, options.rate(), this::finishOrder)), options.poisson(), options.seed());
+
+        AtomicInteger workerIds = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(options.threads(), options.threads(), 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> new Thread(runnable, "load-worker-" + workerIds.incrementAndGet()));
+        long startNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long endNanos = startNanos + TimeUnit.SECONDS.toNanos(options.warmup() + options.duration());
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread dispatcherThread = new Thread(() -> {
+            try {
+                dispatcher.run(workers, startNanos, endNanos);
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        }, "load-dispatcher");
+        dispatcherThread.start();
+
+        System.out.printf("%.1f orders/s, %d bidders per order, %.1f polls/s, %s arrivals, %d workers%n",
+                options.rate(), options.bidders(), options.pollRate(), options.poisson() ? "poisson" : "uniform",
+                options.threads());
+        for (int second = 1; second <= options.warmup() + options.duration(); second++) {
+            long tickNanos = startNanos + TimeUnit.SECONDS.toNanos(second);
+            for (long wait = tickNanos - System.nanoTime(); wait > 0; wait = tickNanos - System.nanoTime())
+                TimeUnit.NANOSECONDS.sleep(wait);
+            boolean warmingUp = second <= options.warmup();
+            StringBuilder line = new StringBuilder(String.format("%4ds%s queued %5d", second, warmingUp ? "*" : " ",
+                    workers.getQueue().size()));
+            for (OperationStats operation : operations) {
+                Histogram interval = operation.interval(warmingUp);
+                line.append(String.format("  %s %d/s p99 %.1f ms", operation.getName(), interval.getTotalCount(),
+                        interval.getValueAtPercentile(99) / NANOS_PER_MILLI));
+            }
+            if (options.reportEvery() > 0 && second % options.reportEvery() == 0)
+                System.out.println(line);
+        }
+        dispatcherThread.join();
+        if (failure.get() != null)
+            throw failure.get();
+        // arrivals due before the end are part of the run however late they complete
+        workers.shutdown();
+        if (!workers.awaitTermination(5, TimeUnit.MINUTES))
+            System.out.printf("%d arrivals still queued after 5 minutes, left out%n", workers.shutdownNow().size());
+        operations.forEach(operation -> operation.interval(false));
+        report(operations);
+    }
+
+    private boolean createOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Orders order = ordersService.save(Orders.builder()
+                .customer(customers.get(random.nextInt(customers.size())))
+                .underDuty(underDuties.get(random.nextInt(underDuties.size())))
+                .proposedPrice(basePrice + random.nextInt(500_000))
+                .description("Repairing a washing machine")
+                .address("guilan, rasht")
+                .dateAndTime(LocalDateTime.now().plusSeconds(1))
+                .orderStatus(OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                .build());
+        biddings.add(new Bidding(order.getId(), options.bidders()));
+        return true;
+    }
+
+    private boolean pollOpenOrders() {
+        ordersService.findAllByUnderDutyIdAndStatus(
+                underDuties.get(ThreadLocalRandom.current().nextInt(underDuties.size())).getId());
+        return true;
+    }
+
+    /**
+     * Bids on the oldest order that still takes offers, so {@code bidders} arrivals in a row compete for
+     * the same order. The first offer moves the order on to specialist selection.
+     */
+    private boolean submitOffer() {
+        Bidding bidding = nextBidding();
+        if (bidding == null)
+            return false;
+        try {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Orders order = ordersService.findById(bidding.orderId);
+            LocalDateTime suggestedTime = order.getDateAndTime().isAfter(LocalDateTime.now())
+                    ? order.getDateAndTime() : LocalDateTime.now().plusSeconds(1);
+            Offers offer = offersService.save(Offers.builder()
+                    .expert(experts.get(random.nextInt(experts.size())))
+                    .proposedPrice(basePrice + random.nextInt(500_000))
+                    .suggestedTime(suggestedTime)
+                    .durationOfWork("1 day")
+                    .ordersSet(new HashSet<>())
+                    .build(), order);
+            ordersService.addOffers(order, offer);
+            bidding.offered(offer.getId(), suggestedTime);
+            return true;
+        } finally {
+            if (bidding.pending.decrementAndGet() == 0 && bidding.offerId.get() != 0)
+                selections.add(new Assignment(bidding.orderId, bidding.offerId.get(), bidding.suggestedTime));
+        }
+    }
+
+    private Bidding nextBidding() {
+        for (Bidding bidding = biddings.peek(); bidding != null; bidding = biddings.peek()) {
+            int slot = bidding.slots.decrementAndGet();
+            if (slot <= 0)
+                biddings.remove(bidding);
+            if (slot >= 0)
+                return bidding;
+        }
+        return null;
+    }
+
+    private boolean selectOffer() {
+        Assignment assignment = selections.poll();
+        if (assignment == null)
+            return false;
+        ordersService.selectOfferForOrder(assignment.orderId(), assignment.offerId());
+        starts.add(assignment);
+        return true;
+    }
+
+    private boolean startOrder() {
+        Assignment assignment = nextDue(starts);
+        if (assignment == null)
+            return false;
+        ordersService.updateOrderStatusToStarted(assignment.orderId(), assignment.offerId());
+        completions.add(assignment);
+        return true;
+    }
+
+    private boolean finishOrder() {
+        Assignment assignment = nextDue(completions);
+        if (assignment == null)
+            return false;
+        ordersService.updateOrderStatusToDone(assignment.orderId(), assignment.offerId());
+        return true;
+    }
+
+    /**
+     * The next assignment whose offer time has come; one that is not due yet goes back to the queue.
+     */
+    private static Assignment nextDue(Queue<Assignment> queue) {
+        Assignment assignment = queue.poll();
+        if (assignment != null && assignment.suggestedTime().isAfter(LocalDateTime.now())) {
+            queue.add(assignment);
+            return null;
+        }
+        return assignment;
+    }
+
+    private void report(List<OperationStats> operations) throws IOException {
+        System.out.printf("%nresponse times from the intended start, in ms; service time p99 from the actual start%n");
+        System.out.printf("%-16s %9s %8s %8s %9s %9s %9s %9s %9s %9s %11s%n", "operation", "count", "errors", "idle",
+                "ops/s", "p50", "p90", "p99", "p99.9", "max", "service p99");
+        for (OperationStats operation : operations) {
+            Histogram response = operation.getResponseTimes();
+            System.out.printf("%-16s %9d %8d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f%n", operation.getName(),
+                    response.getTotalCount(), operation.getErrorCount(), operation.getIdle(),
+                    (double) response.getTotalCount() / options.duration(),
+                    response.getValueAtPercentile(50) / NANOS_PER_MILLI, response.getValueAtPercentile(90) / NANOS_PER_MILLI,
+                    response.getValueAtPercentile(99) / NANOS_PER_MILLI, response.getValueAtPercentile(99.9) / NANOS_PER_MILLI,
+                    response.getMaxValue() / NANOS_PER_MILLI,
+                    operation.getServiceTimes().getValueAtPercentile(99) / NANOS_PER_MILLI);
+            operation.getErrors().forEach((type, count) -> System.out.printf("    %s: %d%n", type, count));
+        }
+        if (options.hgrmDir().isEmpty())
+            return;
+        Path directory = Files.createDirectories(Path.of(options.hgrmDir()));
+        for (OperationStats operation : operations) {
+            write(directory.resolve(operation.getName() + "-response.hgrm"), operation.getResponseTimes());
+            write(directory.resolve(operation.getName() + "-service.hgrm"), operation.getServiceTimes());
+        }
+        System.out.printf("percentile distributions written to %s%n", directory.toAbsolutePath());
+    }
+
+    private static void write(Path file, Histogram histogram) throws FileNotFoundException {
+        try (PrintStream out = new PrintStream(file.toFile())) {
+            histogram.outputPercentileDistribution(out, NANOS_PER_MILLI);
+        }
+    }
+
+    private static class Bidding {
+
+        private final long orderId;
+
+        private final AtomicInteger slots;
+
+        private final AtomicInteger pending;
+
+        private final AtomicLong offerId = new AtomicLong();
+
+        private volatile LocalDateTime suggestedTime;
+
+        private Bidding(long orderId, int bidders) {
+            this.orderId = orderId;
+            this.slots = new AtomicInteger(bidders);
+            this.pending = new AtomicInteger(bidders);
+        }
+
+        private void offered(long id, LocalDateTime time) {
+            if (offerId.compareAndSet(0, id))
+                suggestedTime = time;
+        }
+    }
+
+    private record Assignment(long orderId, long offerId, LocalDateTime suggestedTime) {
+    }
+}
@@ -0,0 +1,48 @@
+package ir.maktab.benchmark.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Settings of a {@link BiddingLoadSimulator} run, given as {@code --name=value} arguments.
+ *
+ * @param rate        orders created per second; every other operation's arrival rate derives from it
+ * @param bidders     offers submitted per order, each as its own arrival
+ * @param pollRate    open-order polls per second, by default one per offer
+ * @param poisson     exponentially distributed gaps between arrivals instead of evenly spaced ones
+ * @param warmup      seconds of load before recording starts
+ * @param duration    seconds of recorded load
+ * @param threads     worker threads; arrivals queue up behind them instead of being dropped or delayed
+ * @param orders      orders already in the marketplace before the run
+ * @param seed        seed of the dataset and the arrival times
+ * @param reportEvery seconds between progress lines, 0 for none
+ * @param hgrmDir     directory for the percentile distribution of every operation, empty for none
+ */
+public record LoadOptions(double rate, int bidders, double pollRate, boolean poisson, int warmup, int duration,
+                          int threads, int orders, long seed, int reportEvery, String hgrmDir) {
+
+    public static LoadOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("="))
+                throw new IllegalArgumentException("expected --name=value but got " + arg);
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        double rate = Double.parseDouble(values.getOrDefault("rate", "20"));
+        int bidders = Integer.parseInt(values.getOrDefault("bidders", "3"));
+        LoadOptions options = new LoadOptions(rate, bidders,
+                Double.parseDouble(values.getOrDefault("poll-rate", String.valueOf(rate * bidders))),
+                !"uniform".equals(values.getOrDefault("arrival", "poisson")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Integer.parseInt(values.getOrDefault("threads", "64")),
+                Integer.parseInt(values.getOrDefault("orders", "10000")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                Integer.parseInt(values.getOrDefault("report-every", "5")),
+                values.getOrDefault("hgrm-dir", "results/load"));
+        if (options.rate <= 0 || options.bidders < 1 || options.pollRate < 0 || options.duration < 1 || options.threads < 1)
+            throw new IllegalArgumentException("rate, bidders, duration and threads must be positive: " + options);
+        return options;
+    }
+}
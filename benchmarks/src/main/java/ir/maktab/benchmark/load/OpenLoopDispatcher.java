@@ -0,0 +1,86 @@
+package ir.maktab.benchmark.load;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+
+
+/**
+ * Starts operations at their arrival rate whatever the system under test does with them. The schedule is
+ * fixed up front: an arrival that falls due while every worker is busy waits in the executor's queue and
+ * its latency still counts from the moment it was due, so a stall shows up in every arrival it delayed
+ * instead of in the one call that was slow.
+ */
+public class OpenLoopDispatcher {
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final List<Arrivals> arrivals;
+
+    private final boolean poisson;
+
+    private final Random random;
+
+    public OpenLoopDispatcher(List<Arrivals> arrivals, boolean poisson, long seed) {
+        this.arrivals = arrivals;
+        this.poisson = poisson;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Hands every arrival due from {@code startNanos} until {@code endNanos} to {@code executor}, returning
+     * once the last one was handed over; it may still be running.
+     */
+    public void run(Executor executor, long startNanos, long endNanos) {
+        double[] due = new double[arrivals.size()];
+        for (int i = 0; i < due.length; i++)
+            due[i] = arrivals.get(i).perSecond() > 0 ? startNanos + gap(arrivals.get(i)) : Double.MAX_VALUE;
+        while (true) {
+            int next = 0;
+            for (int i = 1; i < due.length; i++)
+                if (due[i] < due[next])
+                    next = i;
+            long intendedNanos = (long) due[next];
+            if (intendedNanos >= endNanos)
+                return;
+            for (long wait = intendedNanos - System.nanoTime(); wait > 0; wait = intendedNanos - System.nanoTime())
+                LockSupport.parkNanos(wait);
+            Arrivals arrival = arrivals.get(next);
+            executor.execute(() -> execute(arrival, intendedNanos));
+            due[next] += gap(arrival);
+        }
+    }
+
+    private double gap(Arrivals arrival) {
+        double mean = NANOS_PER_SECOND / arrival.perSecond();
+        return poisson ? -Math.log(1 - random.nextDouble()) * mean : mean;
+    }
+
+    private static void execute(Arrivals arrival, long intendedNanos) {
+        long startNanos = System.nanoTime();
+        try {
+            if (arrival.operation().run())
+                arrival.stats().recordSuccess(intendedNanos, startNanos, System.nanoTime());
+            else
+                arrival.stats().recordIdle();
+        } catch (RuntimeException e) {
+            arrival.stats().recordError(e);
+        }
+    }
+
+    /**
+     * One stream of arrivals.
+     */
+    public record Arrivals(OperationStats stats, double perSecond, Operation operation) {
+    }
+
+    @FunctionalInterface
+    public interface Operation {
+
+        /**
+         * @return {@code false} if there was nothing to do, e.g. no order waiting for this step
+         */
+        boolean run();
+    }
+}
@@ -0,0 +1,102 @@
+package ir.maktab.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Latencies and outcomes of one operation. The response time runs from the moment the arrival was due,
+ * so time spent queued behind a slow system counts against it (coordinated omission corrected); the
+ * service time runs from the moment a worker picked the arrival up, which is what a closed-loop client
+ * would have measured. Only successful calls are recorded; failures are counted by exception type and
+ * arrivals that found nothing to work on, e.g. no order waiting for a selection, as idle.
+ */
+public class OperationStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final String name;
+
+    private final Recorder responseRecorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Recorder serviceRecorder = new Recorder(SIGNIFICANT_DIGITS);
+
+    private final Histogram responseTimes = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final Histogram serviceTimes = new Histogram(SIGNIFICANT_DIGITS);
+
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    private final LongAdder idle = new LongAdder();
+
+    private Histogram responseInterval;
+
+    private Histogram serviceInterval;
+
+    public OperationStats(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordSuccess(long intendedNanos, long startNanos, long endNanos) {
+        responseRecorder.recordValue(Math.max(0, endNanos - intendedNanos));
+        serviceRecorder.recordValue(Math.max(0, endNanos - startNanos));
+    }
+
+    public void recordError(Throwable error) {
+        errors.computeIfAbsent(error.getClass().getSimpleName(), type -> new LongAdder()).increment();
+    }
+
+    public void recordIdle() {
+        idle.increment();
+    }
+
+    /**
+     * Takes the latencies recorded since the last call and, unless {@code discard}, adds them to the
+     * totals. The warmup is discarded this way, along with its error and idle counts.
+     *
+     * @return the response times of the interval
+     */
+    public synchronized Histogram interval(boolean discard) {
+        responseInterval = responseRecorder.getIntervalHistogram(responseInterval);
+        serviceInterval = serviceRecorder.getIntervalHistogram(serviceInterval);
+        if (discard) {
+            errors.clear();
+            idle.reset();
+        } else {
+            responseTimes.add(responseInterval);
+            serviceTimes.add(serviceInterval);
+        }
+        return responseInterval;
+    }
+
+    public Histogram getResponseTimes() {
+        return responseTimes;
+    }
+
+    public Histogram getServiceTimes() {
+        return serviceTimes;
+    }
+
+    public Map<String, Long> getErrors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((type, count) -> counts.put(type, count.sum()));
+        return counts;
+    }
+
+    public long getErrorCount() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long getIdle() {
+        return idle.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package ir.maktab.cache;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+@Component
+public class CatalogCacheStatistics {
+
+    private final CacheManager cacheManager;
+
+    public CatalogCacheStatistics(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public Map<String, CacheStats> stats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache)
+                stats.put(name, cache.getNativeCache().stats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,147 @@
+package ir.maktab.cache;
+
+import ir.maktab.dto.RankedOffer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+
+/**
+ * Keeps the best {@code topK} offers of every order that is still open for bidding, ordered like
+ * {@code OffersRepository.findAllByOrderId} (price desc, expert score desc). Readers get an immutable
+ * snapshot, writers rebuild it under the ranking's lock. A ranking that dropped offers past {@code topK}
+ * is evicted when a change could pull one of the dropped offers back into the top, and is reloaded on
+ * the next read. A ranking is loaded outside the map, and is only kept if no change to the order's
+ * offers came in while it was being read.
+ */
+@Component
+public class OfferRankingCache {
+
+    private static final Comparator<RankedOffer> RANKING = Comparator
+            .comparing(RankedOffer::proposedPrice, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(RankedOffer::expertScore, Comparator.nullsLast(Comparator.reverseOrder()))
+            .thenComparing(RankedOffer::id);
+
+    private final int topK;
+
+    private final Map<Long, Ranking> rankings = new ConcurrentHashMap<>();
+
+    private final Map<Long, Set<Long>> ordersByExpert = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray changes = new AtomicLongArray(1024);
+
+    public OfferRankingCache(@Value("${app.offer-ranking.top-k:50}") int topK) {
+        this.topK = topK;
+    }
+
+    public int topK() {
+        return topK;
+    }
+
+    public List<RankedOffer> get(Long orderId, Function<Long, List<RankedOffer>> loader) {
+        Ranking ranking = rankings.get(orderId);
+        if (ranking != null)
+            return ranking.snapshot;
+        int stripe = stripe(orderId);
+        long seen = changes.get(stripe);
+        Ranking loaded = load(loader.apply(orderId));
+        if (changes.get(stripe) != seen)
+            return loaded.snapshot;
+        ranking = rankings.putIfAbsent(orderId, loaded);
+        if (ranking != null)
+            return ranking.snapshot;
+        loaded.expertIds().forEach(expertId ->
+                ordersByExpert.computeIfAbsent(expertId, id -> ConcurrentHashMap.newKeySet()).add(orderId));
+        return loaded.snapshot;
+    }
+
+    public void add(Long orderId, RankedOffer offer) {
+        changes.incrementAndGet(stripe(orderId));
+        rankings.computeIfPresent(orderId, (id, ranking) -> ranking.add(offer) ? ranking : null);
+        if (rankings.containsKey(orderId))
+            ordersByExpert.computeIfAbsent(offer.expertId(), id -> ConcurrentHashMap.newKeySet()).add(orderId);
+    }
+
+    public void evict(Long orderId) {
+        changes.incrementAndGet(stripe(orderId));
+        Ranking ranking = rankings.remove(orderId);
+        if (ranking != null)
+            ranking.expertIds().forEach(expertId -> ordersByExpert.computeIfPresent(expertId, (id, orders) -> {
+                orders.remove(orderId);
+                return orders.isEmpty() ? null : orders;
+            }));
+    }
+
+    public void updateExpertScore(Long expertId, Integer score) {
+        Set<Long> orders = ordersByExpert.get(expertId);
+        if (orders == null)
+            return;
+        for (Long orderId : List.copyOf(orders)) {
+            Ranking ranking = rankings.get(orderId);
+            if (ranking == null)
+                orders.remove(orderId);
+            else if (!ranking.rescore(expertId, score))
+                evict(orderId);
+        }
+    }
+
+    private Ranking load(List<RankedOffer> offers) {
+        Ranking ranking = new Ranking(offers.size() >= topK);
+        offers.forEach(ranking::add);
+        return ranking;
+    }
+
+    private int stripe(Long orderId) {
+        return Long.hashCode(orderId) & (changes.length() - 1);
+    }
+
+    private final class Ranking {
+
+        private final NavigableSet<RankedOffer> offers = new TreeSet<>(RANKING);
+
+        private final Map<Long, RankedOffer> byId = new HashMap<>();
+
+        private boolean truncated;
+
+        private volatile List<RankedOffer> snapshot = List.of();
+
+        private Ranking(boolean truncated) {
+            this.truncated = truncated;
+        }
+
+        synchronized boolean add(RankedOffer offer) {
+            RankedOffer previous = byId.put(offer.id(), offer);
+            if (previous != null) {
+                offers.remove(previous);
+                if (truncated && RANKING.compare(offer, previous) > 0)
+                    return false;
+            }
+            offers.add(offer);
+            if (offers.size() > topK) {
+                byId.remove(offers.pollLast().id());
+                truncated = true;
+            }
+            snapshot = List.copyOf(offers);
+            return true;
+        }
+
+        synchronized boolean rescore(Long expertId, Integer score) {
+            List<RankedOffer> affected = offers.stream().filter(offer -> offer.expertId().equals(expertId)).toList();
+            for (RankedOffer offer : affected) {
+                if (!add(offer.withExpertScore(score)))
+                    return false;
+            }
+            return true;
+        }
+
+        synchronized Set<Long> expertIds() {
+            Set<Long> expertIds = new HashSet<>();
+            offers.forEach(offer -> expertIds.add(offer.expertId()));
+            return expertIds;
+        }
+    }
+}
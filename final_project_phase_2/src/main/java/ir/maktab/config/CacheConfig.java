@@ -0,0 +1,31 @@
+package ir.maktab.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * The catalog caches. They hold {@code DutyView} and {@code UnderDutyView} copies, never entities, so a
+ * cached value is not tied to a session, has no lazy collection to load and cannot be changed by a caller.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String DUTIES = "duties";
+    public static final String UNDER_DUTY_BY_ID = "underDutyById";
+    public static final String UNDER_DUTIES_BY_DUTY = "underDutiesByDuty";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${app.catalog-cache.spec:maximumSize=10000,expireAfterWrite=30m}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(
+                DUTIES, UNDER_DUTY_BY_ID, UNDER_DUTIES_BY_DUTY);
+        cacheManager.setCaffeine(Caffeine.from(spec).recordStats());
+        return cacheManager;
+    }
+}
@@ -0,0 +1,42 @@
+package ir.maktab.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.maktab.metrics.CachingRepositoryMetricsListener;
+import ir.maktab.metrics.ServiceMetricsInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesAutoTimer;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+
+/**
+ * Times the services annotated with {@code @Timed} under {@value #SERVICE_METRIC} and every repository
+ * method under {@code management.metrics.data.repository.metric-name}. Both are scraped from the
+ * management port.
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_METRIC = "app.service";
+
+    @Bean
+    public Advisor serviceMetricsAdvisor(MeterRegistry meterRegistry) {
+        return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forClassAnnotation(Timed.class),
+                new ServiceMetricsInterceptor(meterRegistry));
+    }
+
+    @Bean
+    public MetricsRepositoryMethodInvocationListener metricsRepositoryMethodInvocationListener(
+            ObjectProvider<MeterRegistry> meterRegistry, RepositoryTagsProvider tagsProvider, MetricsProperties properties) {
+        MetricsProperties.Data.Repository repository = properties.getData().getRepository();
+        return new CachingRepositoryMetricsListener(meterRegistry::getObject, tagsProvider, repository.getMetricName(),
+                new PropertiesAutoTimer(repository.getAutotime()));
+    }
+}
@@ -0,0 +1,61 @@
+package ir.maktab.controller;
+
+import ir.maktab.entity.enumeration.UserType;
+import ir.maktab.exceptions.SubscriptionNotAllowedException;
+import ir.maktab.notification.OrderNotificationHub;
+import ir.maktab.security.UserPrincipal;
+import ir.maktab.service.ExpertService;
+import ir.maktab.service.UserService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CookieValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+
+@RestController
+public class OrderNotificationController {
+
+    /**
+     * Carries the session token for clients that cannot set headers, such as a browser's EventSource.
+     */
+    public static final String SESSION_COOKIE = "SESSION";
+
+    private static final String BEARER = "Bearer ";
+
+    private final OrderNotificationHub orderNotificationHub;
+
+    private final UserService userService;
+
+    private final ExpertService expertService;
+
+    public OrderNotificationController(OrderNotificationHub orderNotificationHub, UserService userService,
+                                       ExpertService expertService) {
+        this.orderNotificationHub = orderNotificationHub;
+        this.userService = userService;
+        this.expertService = expertService;
+    }
+
+    /**
+     * The session token is read from an {@code Authorization: Bearer} header or the {@value #SESSION_COOKIE}
+     * cookie, never from the query string, so it stays out of access logs and browser history.
+     */
+    @GetMapping(path = "/under-duties/{underDutyId}/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable Long underDutyId,
+                                @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                @CookieValue(name = SESSION_COOKIE, required = false) String sessionCookie) {
+        UserPrincipal user = userService.currentUser(sessionToken(authorization, sessionCookie));
+        if (user.userType() != UserType.EXPERT || !expertService.serves(user.id(), underDutyId))
+            throw new SubscriptionNotAllowedException("only an accepted expert of this under duty can follow its orders.");
+        return orderNotificationHub.subscribe(underDutyId);
+    }
+
+    private static String sessionToken(String authorization, String sessionCookie) {
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length()))
+            return authorization.substring(BEARER.length()).trim();
+        return sessionCookie;
+    }
+}
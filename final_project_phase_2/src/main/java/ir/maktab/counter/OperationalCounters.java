@@ -0,0 +1,142 @@
+package ir.maktab.counter;
+
+import ir.maktab.dto.DashboardCounters;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.ExpertStatusChangedEvent;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * In-memory counts for the admin dashboard: orders per status and per under duty, experts per status
+ * and offers per day. Every counter is a {@link LongAdder}, bumped by the order and expert status events
+ * and by the services that save experts and offers, so reading one never touches the database.
+ */
+@Component
+public class OperationalCounters {
+
+    private final Map<OrderStatus, LongAdder> ordersByStatus = adders(OrderStatus.class);
+
+    private final Map<Long, LongAdder> ordersByUnderDuty = new ConcurrentHashMap<>();
+
+    private final Map<ExpertStatus, LongAdder> expertsByStatus = adders(ExpertStatus.class);
+
+    private final Map<LocalDate, LongAdder> offersByDay = new ConcurrentHashMap<>();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        orderCreated(event.underDutyId(), event.status());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        orderStatusChanged(event.from(), event.to());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onExpertStatusChanged(ExpertStatusChangedEvent event) {
+        expertStatusChanged(event.from(), event.to());
+    }
+
+    public void orderCreated(Long underDutyId, OrderStatus status) {
+        if (status != null)
+            ordersByStatus.get(status).increment();
+        if (underDutyId != null)
+            ordersByUnderDuty.computeIfAbsent(underDutyId, id -> new LongAdder()).increment();
+    }
+
+    public void orderStatusChanged(OrderStatus from, OrderStatus to) {
+        if (from == to)
+            return;
+        if (from != null)
+            ordersByStatus.get(from).decrement();
+        if (to != null)
+            ordersByStatus.get(to).increment();
+    }
+
+    public void expertStatusChanged(ExpertStatus from, ExpertStatus to) {
+        if (from == to)
+            return;
+        if (from != null)
+            expertsByStatus.get(from).decrement();
+        if (to != null)
+            expertsByStatus.get(to).increment();
+    }
+
+    public void offerCreated(LocalDate day) {
+        offersByDay.computeIfAbsent(day, d -> new LongAdder()).increment();
+    }
+
+    public long orders(OrderStatus status) {
+        return ordersByStatus.get(status).sum();
+    }
+
+    public long ordersOfUnderDuty(Long underDutyId) {
+        LongAdder adder = ordersByUnderDuty.get(underDutyId);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    public long experts(ExpertStatus status) {
+        return expertsByStatus.get(status).sum();
+    }
+
+    public long offers(LocalDate day) {
+        LongAdder adder = offersByDay.get(day);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * The setters move a counter to {@code value} by adding the difference, so increments that race
+     * with them are kept.
+     */
+    public void setOrders(OrderStatus status, long value) {
+        set(ordersByStatus.get(status), value);
+    }
+
+    public void setOrdersOfUnderDuty(Long underDutyId, long value) {
+        set(ordersByUnderDuty.computeIfAbsent(underDutyId, id -> new LongAdder()), value);
+    }
+
+    public void setExperts(ExpertStatus status, long value) {
+        set(expertsByStatus.get(status), value);
+    }
+
+    public void setOffers(LocalDate day, long value) {
+        set(offersByDay.computeIfAbsent(day, d -> new LongAdder()), value);
+    }
+
+    public void retainOffersSince(LocalDate firstDay) {
+        offersByDay.keySet().removeIf(day -> day.isBefore(firstDay));
+    }
+
+    public DashboardCounters snapshot() {
+        return new DashboardCounters(sums(ordersByStatus, new EnumMap<>(OrderStatus.class)),
+                sums(ordersByUnderDuty, new HashMap<>()),
+                sums(expertsByStatus, new EnumMap<>(ExpertStatus.class)),
+                sums(offersByDay, new TreeMap<>()));
+    }
+
+    private static void set(LongAdder adder, long value) {
+        adder.add(value - adder.sum());
+    }
+
+    private static <K extends Enum<K>> Map<K, LongAdder> adders(Class<K> type) {
+        Map<K, LongAdder> adders = new EnumMap<>(type);
+        for (K key : type.getEnumConstants())
+            adders.put(key, new LongAdder());
+        return Collections.unmodifiableMap(adders);
+    }
+
+    private static <K, M extends Map<K, Long>> M sums(Map<K, LongAdder> adders, M target) {
+        adders.forEach((key, adder) -> target.put(key, adder.sum()));
+        return target;
+    }
+}
@@ -0,0 +1,10 @@
+package ir.maktab.dto;
+
+public interface CommentTotals {
+
+    Long getExpertId();
+
+    Long getCount();
+
+    Long getSum();
+}
@@ -0,0 +1,12 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.OrderStatus;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.SortedMap;
+
+public record DashboardCounters(Map<OrderStatus, Long> ordersByStatus, Map<Long, Long> ordersByUnderDuty,
+                                Map<ExpertStatus, Long> expertsByStatus, SortedMap<LocalDate, Long> offersByDay) {
+}
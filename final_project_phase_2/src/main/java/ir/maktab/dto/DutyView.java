@@ -0,0 +1,13 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.Duty;
+
+/**
+ * A duty as the catalog cache holds it: a copy that shares nothing with the persistence context.
+ */
+public record DutyView(Long id, String name) {
+
+    public static DutyView of(Duty duty) {
+        return new DutyView(duty.getId(), duty.getName());
+    }
+}
@@ -0,0 +1,4 @@
+package ir.maktab.dto;
+
+public record ExpertCandidate(Long expertId, int score) {
+}
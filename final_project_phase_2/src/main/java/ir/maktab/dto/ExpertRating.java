@@ -0,0 +1,12 @@
+package ir.maktab.dto;
+
+public interface ExpertRating {
+
+    Long getExpertId();
+
+    Long getRatingCount();
+
+    Long getRatingSum();
+
+    Integer getScore();
+}
@@ -0,0 +1,10 @@
+package ir.maktab.dto;
+
+public interface ExpertSkill {
+
+    Long getExpertId();
+
+    Integer getScore();
+
+    Long getUnderDutyId();
+}
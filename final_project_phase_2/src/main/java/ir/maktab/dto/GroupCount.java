@@ -0,0 +1,8 @@
+package ir.maktab.dto;
+
+public interface GroupCount {
+
+    Object getGroupKey();
+
+    Long getTotal();
+}
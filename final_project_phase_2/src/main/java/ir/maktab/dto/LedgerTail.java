@@ -0,0 +1,8 @@
+package ir.maktab.dto;
+
+public interface LedgerTail {
+
+    Long getAmount();
+
+    Long getLastSequence();
+}
@@ -0,0 +1,10 @@
+package ir.maktab.dto;
+
+public interface Location {
+
+    Long getId();
+
+    Double getLatitude();
+
+    Double getLongitude();
+}
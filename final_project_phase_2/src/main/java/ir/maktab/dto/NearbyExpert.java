@@ -0,0 +1,4 @@
+package ir.maktab.dto;
+
+public record NearbyExpert(Long expertId, double distanceKm) {
+}
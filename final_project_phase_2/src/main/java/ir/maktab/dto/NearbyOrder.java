@@ -0,0 +1,4 @@
+package ir.maktab.dto;
+
+public record NearbyOrder(OrderSummary order, double distanceKm) {
+}
@@ -0,0 +1,18 @@
+package ir.maktab.dto;
+
+import java.time.LocalDateTime;
+
+public interface OfferSummary {
+
+    Long getId();
+
+    Long getExpertId();
+
+    Integer getExpertScore();
+
+    Long getProposedPrice();
+
+    LocalDateTime getSuggestedTime();
+
+    String getDurationOfWork();
+}
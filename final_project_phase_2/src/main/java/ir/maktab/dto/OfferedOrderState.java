@@ -0,0 +1,10 @@
+package ir.maktab.dto;
+
+import java.time.LocalDateTime;
+
+public interface OfferedOrderState extends OrderState {
+
+    Long getExpertId();
+
+    LocalDateTime getSuggestedTime();
+}
@@ -0,0 +1,8 @@
+package ir.maktab.dto;
+
+public interface OpeningBalance {
+
+    Long getId();
+
+    Long getValidity();
+}
@@ -0,0 +1,30 @@
+package ir.maktab.dto;
+
+import ir.maktab.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+public record OrderCursor(LocalDateTime dateAndTime, Long id) {
+
+    public static OrderCursor of(OrderSummary order) {
+        return new OrderCursor(order.getDateAndTime(), order.getId());
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf('|');
+            return new OrderCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("the given cursor is not valid.");
+        }
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((dateAndTime + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
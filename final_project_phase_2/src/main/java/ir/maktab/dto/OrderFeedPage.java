@@ -0,0 +1,10 @@
+package ir.maktab.dto;
+
+import java.util.List;
+
+public record OrderFeedPage(List<OrderSummary> orders, String nextCursor) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,4 @@
+package ir.maktab.dto;
+
+public record OrderImportError(long row, String message) {
+}
@@ -0,0 +1,20 @@
+package ir.maktab.dto;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of one import. {@code errors} is capped, {@code failedRows} is always the full count.
+ */
+public record OrderImportReport(long totalRows, long importedRows, long failedRows, List<OrderImportError> errors,
+                                Duration elapsed) {
+
+    public boolean errorsTruncated() {
+        return failedRows > errors.size();
+    }
+
+    public double rowsPerSecond() {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        return totalRows * 1_000_000_000d / nanos;
+    }
+}
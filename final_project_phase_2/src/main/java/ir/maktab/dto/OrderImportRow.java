@@ -0,0 +1,7 @@
+package ir.maktab.dto;
+
+import java.time.LocalDateTime;
+
+public record OrderImportRow(Long customerId, Long underDutyId, Long proposedPrice, LocalDateTime dateAndTime,
+                             String address, String description, Double latitude, Double longitude) {
+}
@@ -0,0 +1,6 @@
+package ir.maktab.dto;
+
+public interface OrderLocation extends Location {
+
+    Long getUnderDutyId();
+}
@@ -0,0 +1,25 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+
+import java.time.LocalDateTime;
+
+public record OrderNotification(String type, Long orderId, Long underDutyId, OrderStatus status, Long proposedPrice,
+                                LocalDateTime dateAndTime, String address, String description) {
+
+    public static final String ORDER_CREATED = "order-created";
+    public static final String ORDER_CLOSED = "order-closed";
+
+    public static OrderNotification of(OrderCreatedEvent event) {
+        return new OrderNotification(ORDER_CREATED, event.orderId(), event.underDutyId(),
+                event.status(), event.proposedPrice(), event.dateAndTime(),
+                event.address(), event.description());
+    }
+
+    public static OrderNotification of(OrderStatusChangedEvent event) {
+        return new OrderNotification(ORDER_CLOSED, event.orderId(), event.underDutyId(), event.to(),
+                null, null, null, null);
+    }
+}
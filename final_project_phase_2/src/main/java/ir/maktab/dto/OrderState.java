@@ -0,0 +1,12 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.enumeration.OrderStatus;
+
+public interface OrderState {
+
+    OrderStatus getOrderStatus();
+
+    Long getVersion();
+
+    Long getUnderDutyId();
+}
@@ -0,0 +1,16 @@
+package ir.maktab.dto;
+
+import java.time.LocalDateTime;
+
+public interface OrderSummary {
+
+    Long getId();
+
+    Long getProposedPrice();
+
+    LocalDateTime getDateAndTime();
+
+    String getAddress();
+
+    String getDescription();
+}
@@ -0,0 +1,12 @@
+package ir.maktab.dto;
+
+public interface OrderText {
+
+    Long getId();
+
+    Long getUnderDutyId();
+
+    String getDescription();
+
+    String getAddress();
+}
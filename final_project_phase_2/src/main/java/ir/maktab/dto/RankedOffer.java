@@ -0,0 +1,23 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.Offers;
+
+import java.time.LocalDateTime;
+
+public record RankedOffer(Long id, Long expertId, Integer expertScore, Long proposedPrice,
+                          LocalDateTime suggestedTime, String durationOfWork) {
+
+    public static RankedOffer of(OfferSummary offer) {
+        return new RankedOffer(offer.getId(), offer.getExpertId(), offer.getExpertScore(), offer.getProposedPrice(),
+                offer.getSuggestedTime(), offer.getDurationOfWork());
+    }
+
+    public static RankedOffer of(Offers offer) {
+        return new RankedOffer(offer.getId(), offer.getExpert().getId(), offer.getExpert().getScore(),
+                offer.getProposedPrice(), offer.getSuggestedTime(), offer.getDurationOfWork());
+    }
+
+    public RankedOffer withExpertScore(Integer score) {
+        return new RankedOffer(id, expertId, score, proposedPrice, suggestedTime, durationOfWork);
+    }
+}
@@ -0,0 +1,16 @@
+package ir.maktab.dto;
+
+public interface SettlementCandidate {
+
+    Long getOrderId();
+
+    Long getCustomerId();
+
+    Long getExpertId();
+
+    Long getUnderDutyId();
+
+    Long getAmount();
+
+    Integer getSettlementAttempts();
+}
@@ -0,0 +1,17 @@
+package ir.maktab.dto;
+
+import java.time.Duration;
+
+/**
+ * Outcome of one settlement run. {@code skippedOrders} could not be paid from the customer's balance
+ * and stay {@code DONE}, deferred until their retry backoff passes; {@code remainingOrders} is the
+ * {@code DONE} backlog left when the run finished, deferred orders included.
+ */
+public record SettlementReport(int partitions, long settledOrders, long settledAmount, long skippedOrders,
+                               long failedChunks, long remainingOrders, Duration elapsed) {
+
+    public double ordersPerSecond() {
+        long nanos = Math.max(elapsed.toNanos(), 1);
+        return settledOrders * 1_000_000_000d / nanos;
+    }
+}
@@ -0,0 +1,14 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.UnderDuty;
+
+/**
+ * An under duty as the catalog cache holds it: a copy that shares nothing with the persistence context.
+ */
+public record UnderDutyView(Long id, String name, Long basePrice, String explanation, Long dutyId) {
+
+    public static UnderDutyView of(UnderDuty underDuty) {
+        return new UnderDutyView(underDuty.getId(), underDuty.getName(), underDuty.getBasePrice(),
+                underDuty.getExplanation(), underDuty.getDuty() == null ? null : underDuty.getDuty().getId());
+    }
+}
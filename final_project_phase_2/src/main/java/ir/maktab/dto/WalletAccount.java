@@ -0,0 +1,24 @@
+package ir.maktab.dto;
+
+import ir.maktab.entity.enumeration.AccountType;
+
+public record WalletAccount(AccountType type, Long id) {
+
+    /**
+     * Counterpart of deposits and withdrawals; the only account allowed to go negative. It is split into
+     * shards numbered from 0, this being the first.
+     */
+    public static final WalletAccount SYSTEM = new WalletAccount(AccountType.SYSTEM, 0L);
+
+    public static WalletAccount system(long shard) {
+        return new WalletAccount(AccountType.SYSTEM, shard);
+    }
+
+    public static WalletAccount customer(Long customerId) {
+        return new WalletAccount(AccountType.CUSTOMER, customerId);
+    }
+
+    public static WalletAccount expert(Long expertId) {
+        return new WalletAccount(AccountType.EXPERT, expertId);
+    }
+}
@@ -0,0 +1,4 @@
+package ir.maktab.dto;
+
+public record WalletTransfer(WalletAccount from, WalletAccount to, long amount, String reference) {
+}
@@ -0,0 +1,31 @@
+package ir.maktab.entity;
+
+import ir.maktab.entity.enumeration.AccountType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * The balance of an account after its entry number {@code sequenceNumber}, so a balance is the latest
+ * snapshot plus the few entries after it.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Immutable
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_balance_snapshot_sequence",
+        columnNames = {"accountType", "accountId", "sequenceNumber"}))
+public class BalanceSnapshot extends BaseEntity<Long> {
+
+    @Enumerated(EnumType.STRING)
+    AccountType accountType;
+
+    Long accountId;
+    Long sequenceNumber;
+    Long balance;
+}
@@ -17,6 +17,14 @@ import java.util.List;
 @Entity
 public class Customer extends BaseEntity<Long> {
 
+    /**
+     * The balance the account was opened with, posted once to the ledger by {@code WalletService}.
+     *
+     * @deprecated the current balance is {@code WalletService.balance(WalletAccount.customer(id))}; this is
+     * never credited or debited; read it through {@code OpeningBalance}
+     */
+    @Deprecated
+    @Getter(AccessLevel.NONE)
     Long validity;
 
     @OneToOne()
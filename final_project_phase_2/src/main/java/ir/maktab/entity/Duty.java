@@ -15,6 +15,7 @@ import java.util.List;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_duty_name", columnNames = "name"))
 public class Duty extends BaseEntity<Long> {
 
     String name;
@@ -5,6 +5,8 @@ import ir.maktab.entity.enumeration.ExpertStatus;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.Hibernate;
 
 
 import java.util.HashSet;
@@ -18,19 +20,44 @@ import java.util.Set;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@DynamicUpdate
 public class Expert extends BaseEntity<Long> {
 
     @Enumerated(EnumType.STRING)
     ExpertStatus status;
 
-    byte[] imageUrl;
+    String imageKey;
+    String thumbnailKey;
+    /**
+     * The balance the account was opened with, posted once to the ledger by {@code WalletService}.
+     *
+     * @deprecated the current balance is {@code WalletService.balance(WalletAccount.expert(id))}; this is
+     * never credited or debited; read it through {@code OpeningBalance}
+     */
+    @Deprecated
+    @Getter(AccessLevel.NONE)
     Long validity;
+
+    /**
+     * Derived from the comments by {@code CommentsService} alone: saving an expert never writes them.
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(updatable = false)
     Integer score;
+    @Setter(AccessLevel.NONE)
+    @Column(updatable = false)
+    Long ratingCount;
+    @Setter(AccessLevel.NONE)
+    @Column(updatable = false)
+    Long ratingSum;
+
+    Double latitude;
+    Double longitude;
 
     @OneToOne()
     User user;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany
     @JoinTable(name = "expert_underduty",
             joinColumns = @JoinColumn(name = "expert_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "under_duty_id", referencedColumnName = "id"))
@@ -42,13 +69,28 @@ public class Expert extends BaseEntity<Long> {
     @OneToMany(mappedBy = "expert")
     List<Comments> comments;
 
+    /**
+     * The status as last read from or written to the database, used to detect status transitions.
+     */
+    @Transient
+    ExpertStatus loadedStatus;
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberStatus() {
+        loadedStatus = status;
+    }
+
     public void addUnderDuties(UnderDuty underDuty) {
         underDutySet.add(underDuty);
-        underDuty.getExpertSet().add(this);
+        if (Hibernate.isInitialized(underDuty.getExpertSet()))
+            underDuty.getExpertSet().add(this);
     }
 
     public void removeUnderDuties(UnderDuty underDuty) {
         underDutySet.remove(underDuty);
-        underDuty.getExpertSet().remove(this);
+        if (Hibernate.isInitialized(underDuty.getExpertSet()))
+            underDuty.getExpertSet().remove(this);
     }
 }
@@ -0,0 +1,39 @@
+package ir.maktab.entity;
+
+import ir.maktab.entity.enumeration.AccountType;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One side of a posting. Entries are only ever inserted; every transfer writes a debit and a credit
+ * entry with the same reference whose amounts sum to zero.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Immutable
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_ledger_entry_sequence", columnNames = {"accountType", "accountId", "sequenceNumber"}),
+        @UniqueConstraint(name = "uk_ledger_entry_reference", columnNames = {"reference", "accountType", "accountId"})})
+public class LedgerEntry extends BaseEntity<Long> {
+
+    @Enumerated(EnumType.STRING)
+    AccountType accountType;
+
+    Long accountId;
+    Long sequenceNumber;
+    Long amount;
+    String reference;
+
+    @CreationTimestamp
+    LocalDateTime createdAt;
+}
@@ -30,6 +30,6 @@ public class Offers extends BaseEntity<Long> {
     LocalDateTime suggestedTime;
     String durationOfWork;
 
-    @ManyToMany(mappedBy = "offersSet", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "offersSet")
     Set<Orders> ordersSet = new HashSet<>();
 }
@@ -0,0 +1,32 @@
+package ir.maktab.entity;
+
+import ir.maktab.entity.enumeration.CounterCategory;
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.time.LocalDateTime;
+
+/**
+ * The last flushed value of one dashboard counter, e.g. the number of {@code STARTED} orders
+ * ({@code ORDERS_BY_STATUS}, {@code "STARTED"}) or of the offers made on a day
+ * ({@code OFFERS_BY_DAY}, {@code "2023-02-14"}).
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_operational_counter_key",
+        columnNames = {"category", "counterKey"}))
+public class OperationalCounter extends BaseEntity<Long> {
+
+    @Enumerated(EnumType.STRING)
+    CounterCategory category;
+
+    String counterKey;
+    Long counterValue;
+    LocalDateTime updatedAt;
+}
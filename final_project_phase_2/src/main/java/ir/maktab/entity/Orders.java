@@ -4,6 +4,9 @@ import ir.maktab.entity.enumeration.OrderStatus;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.Hibernate;
 
 
 import java.time.LocalDateTime;
@@ -17,6 +20,8 @@ import java.util.Set;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@DynamicUpdate
+@Table(indexes = @Index(name = "idx_orders_status_id", columnList = "orderStatus, id"))
 public class Orders extends BaseEntity<Long> {
 
     @ManyToOne
@@ -26,6 +31,8 @@ public class Orders extends BaseEntity<Long> {
     String description;
     LocalDateTime dateAndTime;
     String address;
+    Double latitude;
+    Double longitude;
 
     @Enumerated(EnumType.STRING)
     OrderStatus orderStatus;
@@ -36,19 +43,51 @@ public class Orders extends BaseEntity<Long> {
     @OneToOne()
     Expert expert;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * The offer the customer selected; the order is settled for its price.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    Offers acceptedOffer;
+
+    /**
+     * How many settlement runs found the customer's balance short, and when the next one may try again.
+     */
+    Integer settlementAttempts;
+    LocalDateTime settleAfter;
+
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    long version;
+
+    @ManyToMany
     @JoinTable(name = "orders_offers",
             joinColumns = @JoinColumn(name = "orders_id", referencedColumnName = "id"),
             inverseJoinColumns = @JoinColumn(name = "offers_id", referencedColumnName = "id"))
     Set<Offers> offersSet = new HashSet<>();
 
+    /**
+     * The status as last read from or written to the database, used to detect status transitions.
+     */
+    @Transient
+    OrderStatus loadedStatus;
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberStatus() {
+        loadedStatus = orderStatus;
+    }
+
     public void addOffers(Offers offers) {
         offersSet.add(offers);
-        offers.getOrdersSet().add(this);
+        if (Hibernate.isInitialized(offers.getOrdersSet()))
+            offers.getOrdersSet().add(this);
     }
 
     public void removeOffers(Offers offers) {
         offersSet.remove(offers);
-        offers.getOrdersSet().remove(this);
+        if (Hibernate.isInitialized(offers.getOrdersSet()))
+            offers.getOrdersSet().remove(this);
     }
 }
@@ -0,0 +1,27 @@
+package ir.maktab.entity;
+
+import jakarta.persistence.Entity;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Progress of one partition of a settlement run: orders with {@code lowerBound < id <= upperBound},
+ * settled up to and including {@code lastOrderId}. Advanced in the same transaction as the chunk it
+ * describes, so a restarted run continues exactly where the previous one stopped.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Entity
+public class SettlementCheckpoint extends BaseEntity<Long> {
+
+    Integer partitionNumber;
+    Long lowerBound;
+    Long upperBound;
+    Long lastOrderId;
+    Long settledOrders;
+    Boolean completed;
+}
@@ -3,6 +3,7 @@ package ir.maktab.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.DynamicUpdate;
 
 
 import java.util.HashSet;
@@ -15,13 +16,15 @@ import java.util.Set;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
+@DynamicUpdate
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_under_duty_name_duty", columnNames = {"name", "duty_id"}))
 public class UnderDuty extends BaseEntity<Long> {
 
     String name;
     Long basePrice;
     String explanation;
 
-    @ManyToMany(mappedBy = "underDutySet", fetch = FetchType.EAGER)
+    @ManyToMany(mappedBy = "underDutySet")
     Set<Expert> expertSet = new HashSet<>();
 
     @ManyToOne
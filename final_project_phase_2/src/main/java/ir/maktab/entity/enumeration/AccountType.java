@@ -0,0 +1,7 @@
+package ir.maktab.entity.enumeration;
+
+public enum AccountType {
+    CUSTOMER,
+    EXPERT,
+    SYSTEM
+}
@@ -0,0 +1,8 @@
+package ir.maktab.entity.enumeration;
+
+public enum CounterCategory {
+    ORDERS_BY_STATUS,
+    ORDERS_BY_UNDER_DUTY,
+    EXPERTS_BY_STATUS,
+    OFFERS_BY_DAY
+}
@@ -1,10 +1,34 @@
 package ir.maktab.entity.enumeration;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
 public enum OrderStatus {
     WAITING_FOR_THE_SUGGESTION_OF_EXPERTS,
     WAITING_FOR_SPECIALIST_SELECTION,
     WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE,
     STARTED,
     DONE,
-    PAID
+    PAID;
+
+    private static final Map<OrderStatus, Set<OrderStatus>> TRANSITIONS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        TRANSITIONS.put(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS, EnumSet.of(WAITING_FOR_SPECIALIST_SELECTION));
+        TRANSITIONS.put(WAITING_FOR_SPECIALIST_SELECTION, EnumSet.of(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE));
+        TRANSITIONS.put(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE, EnumSet.of(STARTED));
+        TRANSITIONS.put(STARTED, EnumSet.of(DONE));
+        TRANSITIONS.put(DONE, EnumSet.of(PAID));
+        TRANSITIONS.put(PAID, EnumSet.noneOf(OrderStatus.class));
+    }
+
+    public boolean isOpenForOffers() {
+        return this == WAITING_FOR_THE_SUGGESTION_OF_EXPERTS || this == WAITING_FOR_SPECIALIST_SELECTION;
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return TRANSITIONS.get(this).contains(target);
+    }
 }
@@ -0,0 +1,6 @@
+package ir.maktab.event;
+
+import ir.maktab.entity.enumeration.ExpertStatus;
+
+public record ExpertStatusChangedEvent(Long expertId, ExpertStatus from, ExpertStatus to) {
+}
@@ -0,0 +1,17 @@
+package ir.maktab.event;
+
+import ir.maktab.entity.Orders;
+import ir.maktab.entity.enumeration.OrderStatus;
+
+import java.time.LocalDateTime;
+
+public record OrderCreatedEvent(Long orderId, Long underDutyId, OrderStatus status, Long proposedPrice,
+                                LocalDateTime dateAndTime, String address, String description,
+                                Double latitude, Double longitude) {
+
+    public static OrderCreatedEvent of(Orders orders) {
+        return new OrderCreatedEvent(orders.getId(), orders.getUnderDuty().getId(), orders.getOrderStatus(),
+                orders.getProposedPrice(), orders.getDateAndTime(), orders.getAddress(), orders.getDescription(),
+                orders.getLatitude(), orders.getLongitude());
+    }
+}
@@ -0,0 +1,10 @@
+package ir.maktab.event;
+
+import ir.maktab.entity.enumeration.OrderStatus;
+
+public record OrderStatusChangedEvent(Long orderId, Long underDutyId, OrderStatus from, OrderStatus to) {
+
+    public boolean leftBidding() {
+        return (from == null || from.isOpenForOffers()) && (to == null || !to.isOpenForOffers());
+    }
+}
@@ -0,0 +1,13 @@
+package ir.maktab.event;
+
+import ir.maktab.entity.Orders;
+import ir.maktab.entity.enumeration.OrderStatus;
+
+public record OrderUpdatedEvent(Long orderId, Long underDutyId, OrderStatus status, String address,
+                                String description, Double latitude, Double longitude) {
+
+    public static OrderUpdatedEvent of(Orders orders) {
+        return new OrderUpdatedEvent(orders.getId(), orders.getUnderDuty().getId(), orders.getOrderStatus(),
+                orders.getAddress(), orders.getDescription(), orders.getLatitude(), orders.getLongitude());
+    }
+}
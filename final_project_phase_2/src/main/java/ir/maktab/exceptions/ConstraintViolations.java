@@ -0,0 +1,29 @@
+package ir.maktab.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+
+/**
+ * Tells which unique constraint rejected an insert, so a duplicate can be reported with the
+ * domain exception instead of checking for the row first.
+ */
+public final class ConstraintViolations {
+
+    public static final String USERS_EMAIL = "uk_users_email";
+    public static final String DUTY_NAME = "uk_duty_name";
+    public static final String UNDER_DUTY_NAME_DUTY = "uk_under_duty_name_duty";
+    public static final String LEDGER_ENTRY_SEQUENCE = "uk_ledger_entry_sequence";
+    public static final String LEDGER_ENTRY_REFERENCE = "uk_ledger_entry_reference";
+
+    private ConstraintViolations() {
+    }
+
+    public static boolean isViolationOf(DataIntegrityViolationException exception, String constraintName) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation)
+                return constraintName.equalsIgnoreCase(violation.getConstraintName());
+        }
+        return false;
+    }
+}
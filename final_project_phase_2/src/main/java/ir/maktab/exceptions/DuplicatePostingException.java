@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class DuplicatePostingException extends RuntimeException {
+
+    public DuplicatePostingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class ImageNotFoundException extends RuntimeException {
+
+    public ImageNotFoundException(String message) {
+        super(message);
+    }
+}
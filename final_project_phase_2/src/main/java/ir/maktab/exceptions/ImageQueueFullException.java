@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class ImageQueueFullException extends RuntimeException {
+
+    public ImageQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InsufficientBalanceException extends RuntimeException {
+
+    public InsufficientBalanceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InvalidCommentScoreException extends RuntimeException {
+
+    public InvalidCommentScoreException(String message) {
+        super(message);
+    }
+}
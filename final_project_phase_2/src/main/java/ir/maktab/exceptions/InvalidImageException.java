@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InvalidImageException extends RuntimeException {
+
+    public InvalidImageException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InvalidImportRowException extends RuntimeException {
+
+    public InvalidImportRowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InvalidLocationException extends RuntimeException {
+
+    public InvalidLocationException(String message) {
+        super(message);
+    }
+}
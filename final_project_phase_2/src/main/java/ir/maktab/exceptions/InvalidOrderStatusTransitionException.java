@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class InvalidOrderStatusTransitionException extends RuntimeException {
+
+    public InvalidOrderStatusTransitionException(String message) {
+        super(message);
+    }
+}
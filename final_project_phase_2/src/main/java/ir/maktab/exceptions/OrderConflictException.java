@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class OrderConflictException extends RuntimeException {
+
+    public OrderConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class OrderImportException extends RuntimeException {
+
+    public OrderImportException(String message) {
+        super(message);
+    }
+}
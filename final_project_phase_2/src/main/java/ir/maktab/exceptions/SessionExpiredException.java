@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class SessionExpiredException extends RuntimeException {
+
+    public SessionExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class SessionLimitExceededException extends RuntimeException {
+
+    public SessionLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class SubscriptionLimitExceededException extends RuntimeException {
+
+    public SubscriptionLimitExceededException(String message) {
+        super(message);
+    }
+}
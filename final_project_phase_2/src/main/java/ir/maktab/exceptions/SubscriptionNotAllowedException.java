@@ -0,0 +1,8 @@
+package ir.maktab.exceptions;
+
+public class SubscriptionNotAllowedException extends RuntimeException {
+
+    public SubscriptionNotAllowedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,198 @@
+package ir.maktab.geo;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+
+/**
+ * Points bucketed into cells of {@code cellDegrees} by {@code cellDegrees}. A radius query reads only
+ * the cells overlapping the radius' bounding box and a nearest query reads rings of cells around the
+ * origin until no unread cell can hold anything closer, so neither depends on the total number of
+ * points. Points outside the bounding box are rejected before the haversine distance is computed.
+ * Longitudes do not wrap around the antimeridian. Safe for concurrent updates and queries.
+ */
+public class GeoGrid {
+
+    private static final double KM_PER_DEGREE = Math.PI * GeoPoint.EARTH_RADIUS_KM / 180;
+
+    private final double cellDegrees;
+
+    private final int columns;
+
+    private final Map<Long, GeoPoint> points = new ConcurrentHashMap<>();
+
+    private final Map<Long, Map<Long, GeoPoint>> cells = new ConcurrentHashMap<>();
+
+    public GeoGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.columns = (int) Math.ceil(360 / cellDegrees) + 1;
+    }
+
+    public void put(Long id, GeoPoint point) {
+        if (point == null) {
+            remove(id);
+            return;
+        }
+        points.compute(id, (key, previous) -> {
+            long cell = cellOf(point);
+            if (previous != null && cellOf(previous) != cell)
+                unlink(cellOf(previous), key);
+            link(cell, key, point);
+            return point;
+        });
+    }
+
+    public void remove(Long id) {
+        points.computeIfPresent(id, (key, previous) -> {
+            unlink(cellOf(previous), key);
+            return null;
+        });
+    }
+
+    public void clear() {
+        new ArrayList<>(points.keySet()).forEach(this::remove);
+    }
+
+    public int size() {
+        return points.size();
+    }
+
+    public boolean isEmpty() {
+        return points.isEmpty();
+    }
+
+    public GeoPoint get(Long id) {
+        return points.get(id);
+    }
+
+    /**
+     * @return up to {@code limit} points accepted by {@code filter} within {@code radiusKm}, nearest first
+     */
+    public List<GeoMatch> within(GeoPoint origin, double radiusKm, LongPredicate filter, int limit) {
+        if (limit <= 0)
+            return List.of();
+        Bounds bounds = new Bounds(origin, radiusKm);
+        PriorityQueue<GeoMatch> nearest = new PriorityQueue<>(Comparator.comparingDouble(GeoMatch::distanceKm).reversed());
+        for (int row = row(bounds.minLatitude); row <= row(bounds.maxLatitude); row++)
+            for (int column = column(bounds.minLongitude); column <= column(bounds.maxLongitude); column++)
+                collect(row, column, origin, bounds, filter, limit, nearest);
+        return sorted(nearest);
+    }
+
+    /**
+     * @return the {@code limit} points accepted by {@code filter} nearest to {@code origin}, no farther
+     * than {@code maxRadiusKm}, nearest first
+     */
+    public List<GeoMatch> nearest(GeoPoint origin, int limit, double maxRadiusKm, LongPredicate filter) {
+        if (limit <= 0 || points.isEmpty())
+            return List.of();
+        Bounds bounds = new Bounds(origin, maxRadiusKm);
+        PriorityQueue<GeoMatch> nearest = new PriorityQueue<>(Comparator.comparingDouble(GeoMatch::distanceKm).reversed());
+        int originRow = row(origin.latitude());
+        int originColumn = column(origin.longitude());
+        // the narrowest cell side within reach bounds how close an unread ring can be
+        double cellKm = cellDegrees * KM_PER_DEGREE
+                * Math.cos(Math.toRadians(Math.min(89, Math.max(Math.abs(bounds.minLatitude), Math.abs(bounds.maxLatitude)))));
+        int maxRing = (int) Math.ceil(maxRadiusKm / cellKm) + 1;
+        for (int ring = 0; ring <= maxRing; ring++) {
+            if (nearest.size() == limit && nearest.peek().distanceKm() <= (ring - 1) * cellKm)
+                break;
+            for (int row = originRow - ring; row <= originRow + ring; row++) {
+                boolean edgeRow = row == originRow - ring || row == originRow + ring;
+                int step = edgeRow || ring == 0 ? 1 : 2 * ring;
+                for (int column = originColumn - ring; column <= originColumn + ring; column += step)
+                    collect(row, column, origin, bounds, filter, limit, nearest);
+            }
+        }
+        return sorted(nearest);
+    }
+
+    private void collect(int row, int column, GeoPoint origin, Bounds bounds, LongPredicate filter, int limit,
+                         PriorityQueue<GeoMatch> nearest) {
+        if (column < 0 || column >= columns)
+            return;
+        Map<Long, GeoPoint> cell = cells.get((long) row * columns + column);
+        if (cell == null)
+            return;
+        for (Map.Entry<Long, GeoPoint> entry : cell.entrySet()) {
+            GeoPoint point = entry.getValue();
+            if (!bounds.contains(point))
+                continue;
+            double distance = origin.distanceKm(point);
+            if (distance > bounds.radiusKm || (nearest.size() == limit && distance >= nearest.peek().distanceKm()))
+                continue;
+            if (!filter.test(entry.getKey()))
+                continue;
+            nearest.add(new GeoMatch(entry.getKey(), distance));
+            if (nearest.size() > limit)
+                nearest.poll();
+        }
+    }
+
+    private static List<GeoMatch> sorted(PriorityQueue<GeoMatch> nearest) {
+        List<GeoMatch> matches = new ArrayList<>(nearest);
+        matches.sort(Comparator.comparingDouble(GeoMatch::distanceKm));
+        return matches;
+    }
+
+    private void link(long cell, Long id, GeoPoint point) {
+        cells.compute(cell, (key, ids) -> {
+            if (ids == null)
+                ids = new ConcurrentHashMap<>();
+            ids.put(id, point);
+            return ids;
+        });
+    }
+
+    private void unlink(long cell, Long id) {
+        cells.computeIfPresent(cell, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private long cellOf(GeoPoint point) {
+        return (long) row(point.latitude()) * columns + column(point.longitude());
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    /**
+     * The latitude and longitude box around a circle.
+     */
+    private static final class Bounds {
+
+        private final double radiusKm;
+
+        private final double minLatitude;
+
+        private final double maxLatitude;
+
+        private final double minLongitude;
+
+        private final double maxLongitude;
+
+        private Bounds(GeoPoint origin, double radiusKm) {
+            this.radiusKm = radiusKm;
+            double latitudeDegrees = radiusKm / KM_PER_DEGREE;
+            this.minLatitude = Math.max(-90, origin.latitude() - latitudeDegrees);
+            this.maxLatitude = Math.min(90, origin.latitude() + latitudeDegrees);
+            double widestLatitude = Math.min(89, Math.max(Math.abs(minLatitude), Math.abs(maxLatitude)));
+            double longitudeDegrees = Math.min(180, radiusKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(widestLatitude))));
+            this.minLongitude = Math.max(-180, origin.longitude() - longitudeDegrees);
+            this.maxLongitude = Math.min(180, origin.longitude() + longitudeDegrees);
+        }
+
+        private boolean contains(GeoPoint point) {
+            return point.latitude() >= minLatitude && point.latitude() <= maxLatitude
+                    && point.longitude() >= minLongitude && point.longitude() <= maxLongitude;
+        }
+    }
+}
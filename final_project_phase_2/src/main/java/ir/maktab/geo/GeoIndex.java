@@ -0,0 +1,145 @@
+package ir.maktab.geo;
+
+import ir.maktab.dto.Location;
+import ir.maktab.dto.OrderLocation;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.event.OrderUpdatedEvent;
+import ir.maktab.matching.ExpertMatchingEngine;
+import ir.maktab.repository.ExpertRepository;
+import ir.maktab.repository.OrdersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Grid indexes of the open orders, one grid per under duty, and of the experts that have a location.
+ * Experts are filtered by {@link ExpertMatchingEngine}, so only accepted experts serving the order's
+ * under duty are returned. Built once the application is ready and kept current from the order events
+ * and by the services that save experts.
+ */
+@Component
+public class GeoIndex {
+
+    private final OrdersRepository ordersRepository;
+
+    private final ExpertRepository expertRepository;
+
+    private final ExpertMatchingEngine expertMatchingEngine;
+
+    private final double cellDegrees;
+
+    private final Map<Long, GeoGrid> openOrdersByUnderDuty = new ConcurrentHashMap<>();
+
+    private final Map<Long, Long> underDutyByOrder = new ConcurrentHashMap<>();
+
+    private final GeoGrid experts;
+
+    private final int rebuildBatchSize;
+
+    public GeoIndex(OrdersRepository ordersRepository, ExpertRepository expertRepository,
+                    ExpertMatchingEngine expertMatchingEngine,
+                    @Value("${app.geo.cell-degrees:0.01}") double cellDegrees,
+                    @Value("${app.geo.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.ordersRepository = ordersRepository;
+        this.expertRepository = expertRepository;
+        this.expertMatchingEngine = expertMatchingEngine;
+        this.cellDegrees = cellDegrees;
+        this.experts = new GeoGrid(cellDegrees);
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        new ArrayList<>(underDutyByOrder.keySet()).forEach(this::removeOrder);
+        long lastId = 0;
+        while (true) {
+            List<OrderLocation> orders = ordersRepository.findOpenOrderLocationsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+            if (orders.isEmpty())
+                break;
+            orders.forEach(order -> putOrder(order.getId(), order.getUnderDutyId(),
+                    new GeoPoint(order.getLatitude(), order.getLongitude())));
+            lastId = orders.get(orders.size() - 1).getId();
+        }
+        experts.clear();
+        lastId = 0;
+        while (true) {
+            List<Location> locations = expertRepository.findLocationsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+            if (locations.isEmpty())
+                return;
+            locations.forEach(location -> experts.put(location.getId(),
+                    new GeoPoint(location.getLatitude(), location.getLongitude())));
+            lastId = locations.get(locations.size() - 1).getId();
+        }
+    }
+
+    public void indexOrder(Long orderId, Long underDutyId, OrderStatus status, GeoPoint location) {
+        if (location != null && status != null && status.isOpenForOffers())
+            putOrder(orderId, underDutyId, location);
+        else
+            removeOrder(orderId);
+    }
+
+    public void indexExpert(Long expertId, GeoPoint location) {
+        experts.put(expertId, location);
+    }
+
+    public GeoPoint findExpertLocation(Long expertId) {
+        return experts.get(expertId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        indexOrder(event.orderId(), event.underDutyId(), event.status(), GeoPoint.of(event.latitude(), event.longitude()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderUpdated(OrderUpdatedEvent event) {
+        indexOrder(event.orderId(), event.underDutyId(), event.status(), GeoPoint.of(event.latitude(), event.longitude()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.to() == null || !event.to().isOpenForOffers())
+            removeOrder(event.orderId());
+    }
+
+    public List<GeoMatch> findOpenOrdersWithin(GeoPoint origin, double radiusKm, Set<Long> underDutyIds, int limit) {
+        List<GeoMatch> matches = new ArrayList<>();
+        for (Long underDutyId : underDutyIds) {
+            GeoGrid openOrders = openOrdersByUnderDuty.get(underDutyId);
+            if (openOrders != null)
+                matches.addAll(openOrders.within(origin, radiusKm, orderId -> true, limit));
+        }
+        matches.sort(Comparator.comparingDouble(GeoMatch::distanceKm));
+        return matches.size() <= limit ? matches : matches.subList(0, limit);
+    }
+
+    public List<GeoMatch> findNearestExperts(GeoPoint origin, Long underDutyId, int limit, double maxRadiusKm) {
+        return experts.nearest(origin, limit, maxRadiusKm, expertId -> expertMatchingEngine.serves(expertId, underDutyId));
+    }
+
+    private void putOrder(Long orderId, Long underDutyId, GeoPoint location) {
+        underDutyByOrder.compute(orderId, (id, previousUnderDutyId) -> {
+            if (previousUnderDutyId != null && !previousUnderDutyId.equals(underDutyId))
+                openOrdersByUnderDuty.get(previousUnderDutyId).remove(id);
+            openOrdersByUnderDuty.computeIfAbsent(underDutyId, key -> new GeoGrid(cellDegrees)).put(id, location);
+            return underDutyId;
+        });
+    }
+
+    private void removeOrder(Long orderId) {
+        underDutyByOrder.computeIfPresent(orderId, (id, underDutyId) -> {
+            openOrdersByUnderDuty.get(underDutyId).remove(id);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,4 @@
+package ir.maktab.geo;
+
+public record GeoMatch(Long id, double distanceKm) {
+}
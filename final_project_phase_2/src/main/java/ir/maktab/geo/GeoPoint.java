@@ -0,0 +1,40 @@
+package ir.maktab.geo;
+
+import ir.maktab.exceptions.InvalidLocationException;
+
+/**
+ * A WGS84 latitude and longitude in degrees.
+ */
+public record GeoPoint(double latitude, double longitude) {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    public GeoPoint {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180))
+            throw new InvalidLocationException("the location is not a valid latitude and longitude.");
+    }
+
+    /**
+     * @return the point, or {@code null} if both coordinates are {@code null}
+     * @throws InvalidLocationException if only one of them is set or they are out of range
+     */
+    public static GeoPoint of(Double latitude, Double longitude) {
+        if (latitude == null && longitude == null)
+            return null;
+        if (latitude == null || longitude == null)
+            throw new InvalidLocationException("a location needs both a latitude and a longitude.");
+        return new GeoPoint(latitude, longitude);
+    }
+
+    /**
+     * Great-circle distance by the haversine formula.
+     */
+    public double distanceKm(GeoPoint other) {
+        double dLat = Math.toRadians(other.latitude - latitude);
+        double dLon = Math.toRadians(other.longitude - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude)) * Math.cos(Math.toRadians(other.latitude))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,165 @@
+package ir.maktab.imports;
+
+import ir.maktab.dto.OrderImportRow;
+import ir.maktab.exceptions.InvalidImportRowException;
+import ir.maktab.exceptions.OrderImportException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * RFC 4180 style CSV with a header row naming the columns in any order:
+ * {@code customerId,underDutyId,proposedPrice,dateAndTime,address,description}, optionally followed by
+ * {@code latitude,longitude}.
+ * Quoted fields may contain commas, doubled quotes and line breaks.
+ */
+public class CsvOrderRowReader implements OrderRowReader {
+
+    private static final List<String> COLUMNS =
+            List.of("customerId", "underDutyId", "proposedPrice", "dateAndTime", "address", "description");
+
+    private static final List<String> OPTIONAL_COLUMNS = List.of("latitude", "longitude");
+
+    private final BufferedReader reader;
+
+    private final int[] positions = new int[COLUMNS.size()];
+
+    private final int[] optionalPositions = new int[OPTIONAL_COLUMNS.size()];
+
+    private long rowNumber;
+
+    public CsvOrderRowReader(BufferedReader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        if (header == null)
+            throw new OrderImportException("the csv file has no header row.");
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            positions[i] = header.indexOf(COLUMNS.get(i));
+            if (positions[i] < 0)
+                throw new OrderImportException("the csv header has no '" + COLUMNS.get(i) + "' column.");
+        }
+        for (int i = 0; i < OPTIONAL_COLUMNS.size(); i++)
+            optionalPositions[i] = header.indexOf(OPTIONAL_COLUMNS.get(i));
+        rowNumber = 0;
+    }
+
+    @Override
+    public OrderImportRow next() throws IOException {
+        List<String> fields;
+        do {
+            fields = readRecord();
+            if (fields == null)
+                return null;
+        } while (fields.size() == 1 && fields.get(0).isBlank());
+        return new OrderImportRow(
+                toLong(field(fields, 0), "customerId"),
+                toLong(field(fields, 1), "underDutyId"),
+                toLong(field(fields, 2), "proposedPrice"),
+                toDateTime(field(fields, 3)),
+                field(fields, 4),
+                field(fields, 5),
+                toDouble(optionalField(fields, 0), "latitude"),
+                toDouble(optionalField(fields, 1), "longitude"));
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String field(List<String> fields, int column) {
+        int position = positions[column];
+        if (position >= fields.size())
+            throw new InvalidImportRowException("the row has no value for '" + COLUMNS.get(column) + "'.");
+        String value = fields.get(position);
+        return value.isEmpty() ? null : value;
+    }
+
+    private String optionalField(List<String> fields, int column) {
+        int position = optionalPositions[column];
+        if (position < 0 || position >= fields.size())
+            return null;
+        String value = fields.get(position);
+        return value.isEmpty() ? null : value;
+    }
+
+    private static Double toDouble(String value, String column) {
+        if (value == null)
+            return null;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidImportRowException("'" + column + "' is not a number: " + value);
+        }
+    }
+
+    private static Long toLong(String value, String column) {
+        if (value == null)
+            return null;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidImportRowException("'" + column + "' is not a number: " + value);
+        }
+    }
+
+    private static LocalDateTime toDateTime(String value) {
+        if (value == null)
+            return null;
+        try {
+            return LocalDateTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            throw new InvalidImportRowException("'dateAndTime' is not an ISO-8601 date and time: " + value);
+        }
+    }
+
+    private List<String> readRecord() throws IOException {
+        String line = reader.readLine();
+        if (line == null)
+            return null;
+        rowNumber++;
+        List<String> fields = new ArrayList<>(COLUMNS.size());
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (true) {
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (!quoted)
+                break;
+            line = reader.readLine();
+            if (line == null)
+                throw new InvalidImportRowException("unterminated quoted field.");
+            field.append('\n');
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,54 @@
+package ir.maktab.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ir.maktab.dto.OrderImportRow;
+import ir.maktab.exceptions.InvalidImportRowException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+
+/**
+ * One JSON object per line. Lines are bound independently, so a broken line is reported and skipped.
+ */
+public class NdjsonOrderRowReader implements OrderRowReader {
+
+    private final BufferedReader reader;
+
+    private final ObjectReader rowReader;
+
+    private long rowNumber;
+
+    public NdjsonOrderRowReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.rowReader = objectMapper.readerFor(OrderImportRow.class);
+    }
+
+    @Override
+    public OrderImportRow next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null)
+                return null;
+            rowNumber++;
+        } while (line.isBlank());
+        try {
+            return rowReader.readValue(line);
+        } catch (JsonProcessingException e) {
+            throw new InvalidImportRowException("malformed json: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long rowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,23 @@
+package ir.maktab.imports;
+
+import ir.maktab.dto.OrderImportRow;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads one order row at a time so an import never holds more than the current row in memory.
+ */
+public interface OrderRowReader extends Closeable {
+
+    /**
+     * @return the next row, or {@code null} at the end of the input
+     * @throws ir.maktab.exceptions.InvalidImportRowException if the row is malformed; the reader stays usable
+     */
+    OrderImportRow next() throws IOException;
+
+    /**
+     * @return the 1-based record number, header excluded, of the row last returned or rejected by {@link #next()}
+     */
+    long rowNumber();
+}
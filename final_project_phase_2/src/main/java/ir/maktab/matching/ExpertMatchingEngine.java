@@ -0,0 +1,158 @@
+package ir.maktab.matching;
+
+import ir.maktab.dto.ExpertCandidate;
+import ir.maktab.dto.ExpertSkill;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.repository.ExpertRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+
+/**
+ * Inverted index from under duty to the accepted experts that serve it, each posting list kept sorted
+ * by score desc, then expert id. Answering "top N experts for an under duty" walks the head of one
+ * skip list and never touches the database. The index is built once the application is ready and then
+ * kept current by {@link #index} whenever an expert is saved.
+ */
+@Component
+public class ExpertMatchingEngine {
+
+    private static final Comparator<ExpertCandidate> RANKING = Comparator
+            .comparingInt(ExpertCandidate::score).reversed()
+            .thenComparing(ExpertCandidate::expertId);
+
+    private final ExpertRepository expertRepository;
+
+    private final Map<Long, NavigableSet<ExpertCandidate>> candidatesByUnderDuty = new ConcurrentHashMap<>();
+
+    private final Map<Long, Posting> postingsByExpert = new ConcurrentHashMap<>();
+
+    public ExpertMatchingEngine(ExpertRepository expertRepository) {
+        this.expertRepository = expertRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, ExpertCandidate> candidates = new HashMap<>();
+        Map<Long, Set<Long>> underDutyIds = new HashMap<>();
+        for (ExpertSkill skill : expertRepository.findSkillsByStatus(ExpertStatus.ACCEPTED)) {
+            candidates.computeIfAbsent(skill.getExpertId(), id -> candidate(id, skill.getScore()));
+            underDutyIds.computeIfAbsent(skill.getExpertId(), id -> new HashSet<>()).add(skill.getUnderDutyId());
+        }
+        List<Long> stale = postingsByExpert.keySet().stream().filter(expertId -> !candidates.containsKey(expertId)).toList();
+        stale.forEach(this::remove);
+        candidates.forEach((expertId, candidate) -> put(candidate, underDutyIds.get(expertId)));
+    }
+
+    /**
+     * Re-indexes one expert after it was saved.
+     *
+     * @param underDutyIds the expert's under duties, or {@code null} to keep the ones already indexed
+     */
+    public void index(Long expertId, ExpertStatus status, Integer score, Set<Long> underDutyIds) {
+        if (status != ExpertStatus.ACCEPTED) {
+            remove(expertId);
+            return;
+        }
+        if (underDutyIds == null) {
+            Posting posting = postingsByExpert.get(expertId);
+            underDutyIds = posting == null ? Set.of() : posting.underDutyIds();
+        }
+        put(candidate(expertId, score), underDutyIds);
+    }
+
+    /**
+     * Re-indexes one expert from the database after a partial update that did not load the entity.
+     */
+    public void refresh(Long expertId, ExpertStatus status) {
+        if (status != ExpertStatus.ACCEPTED) {
+            remove(expertId);
+            return;
+        }
+        List<ExpertSkill> skills = expertRepository.findSkillsById(expertId);
+        if (skills.isEmpty()) {
+            remove(expertId);
+            return;
+        }
+        Set<Long> underDutyIds = new HashSet<>();
+        skills.forEach(skill -> {
+            if (skill.getUnderDutyId() != null)
+                underDutyIds.add(skill.getUnderDutyId());
+        });
+        ExpertSkill skill = skills.get(0);
+        put(candidate(expertId, skill.getScore()), underDutyIds);
+    }
+
+    public void rescore(Long expertId, Integer score) {
+        Posting posting = postingsByExpert.get(expertId);
+        if (posting != null)
+            put(candidate(expertId, score), posting.underDutyIds());
+    }
+
+    public void remove(Long expertId) {
+        postingsByExpert.computeIfPresent(expertId, (id, posting) -> {
+            posting.underDutyIds().forEach(underDutyId -> unlink(underDutyId, posting.candidate()));
+            return null;
+        });
+    }
+
+    public List<ExpertCandidate> findTopCandidates(Long underDutyId, int limit) {
+        NavigableSet<ExpertCandidate> candidates = candidatesByUnderDuty.get(underDutyId);
+        if (candidates == null || limit <= 0)
+            return List.of();
+        List<ExpertCandidate> top = new ArrayList<>(Math.min(limit, 64));
+        for (ExpertCandidate candidate : candidates) {
+            top.add(candidate);
+            if (top.size() == limit)
+                break;
+        }
+        return top;
+    }
+
+    public int countCandidates(Long underDutyId) {
+        NavigableSet<ExpertCandidate> candidates = candidatesByUnderDuty.get(underDutyId);
+        return candidates == null ? 0 : candidates.size();
+    }
+
+    /**
+     * @return the under duties an accepted expert is indexed under, empty for any other expert
+     */
+    public Set<Long> findUnderDutyIds(Long expertId) {
+        Posting posting = postingsByExpert.get(expertId);
+        return posting == null ? Set.of() : posting.underDutyIds();
+    }
+
+    public boolean serves(Long expertId, Long underDutyId) {
+        Posting posting = postingsByExpert.get(expertId);
+        return posting != null && posting.underDutyIds().contains(underDutyId);
+    }
+
+    private void put(ExpertCandidate candidate, Set<Long> underDutyIds) {
+        Set<Long> indexedIds = Set.copyOf(underDutyIds);
+        postingsByExpert.compute(candidate.expertId(), (id, previous) -> {
+            if (previous != null)
+                previous.underDutyIds().forEach(underDutyId -> unlink(underDutyId, previous.candidate()));
+            indexedIds.forEach(underDutyId -> candidatesByUnderDuty
+                    .computeIfAbsent(underDutyId, key -> new ConcurrentSkipListSet<>(RANKING)).add(candidate));
+            return new Posting(candidate, indexedIds);
+        });
+    }
+
+    private void unlink(Long underDutyId, ExpertCandidate candidate) {
+        NavigableSet<ExpertCandidate> candidates = candidatesByUnderDuty.get(underDutyId);
+        if (candidates != null)
+            candidates.remove(candidate);
+    }
+
+    private static ExpertCandidate candidate(Long expertId, Integer score) {
+        return new ExpertCandidate(expertId, score == null ? 0 : score);
+    }
+
+    private record Posting(ExpertCandidate candidate, Set<Long> underDutyIds) {
+    }
+}
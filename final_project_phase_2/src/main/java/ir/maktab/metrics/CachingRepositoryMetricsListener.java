@@ -0,0 +1,60 @@
+package ir.maktab.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.actuate.metrics.AutoTimer;
+import org.springframework.boot.actuate.metrics.data.MetricsRepositoryMethodInvocationListener;
+import org.springframework.boot.actuate.metrics.data.RepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocationResult.State;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+
+/**
+ * Records repository invocations with the same name and tags as Spring Boot's listener, but registers
+ * the timer of each repository, method, state and exception once instead of building it on every call.
+ */
+public class CachingRepositoryMetricsListener extends MetricsRepositoryMethodInvocationListener {
+
+    private final Supplier<MeterRegistry> registrySupplier;
+
+    private final RepositoryTagsProvider tagsProvider;
+
+    private final String metricName;
+
+    private final AutoTimer autoTimer;
+
+    private final Map<TimerKey, Timer> timers = new ConcurrentHashMap<>();
+
+    public CachingRepositoryMetricsListener(Supplier<MeterRegistry> registrySupplier, RepositoryTagsProvider tagsProvider,
+                                            String metricName, AutoTimer autoTimer) {
+        super(registrySupplier, tagsProvider, metricName, autoTimer);
+        this.registrySupplier = registrySupplier;
+        this.tagsProvider = tagsProvider;
+        this.metricName = metricName;
+        this.autoTimer = autoTimer;
+    }
+
+    @Override
+    public void afterInvocation(RepositoryMethodInvocation invocation) {
+        if (!autoTimer.isEnabled())
+            return;
+        Throwable error = invocation.getResult() == null ? null : invocation.getResult().getError();
+        TimerKey key = new TimerKey(invocation.getRepositoryInterface(), invocation.getMethod(),
+                invocation.getResult() == null ? null : invocation.getResult().getState(),
+                error == null ? null : error.getClass());
+        Timer timer = timers.get(key);
+        if (timer == null)
+            timer = timers.computeIfAbsent(key, k -> autoTimer.builder(metricName)
+                    .tags(tagsProvider.repositoryTags(invocation))
+                    .register(registrySupplier.get()));
+        timer.record(invocation.getDuration(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    private record TimerKey(Class<?> repository, Method method, State state, Class<?> exception) {
+    }
+}
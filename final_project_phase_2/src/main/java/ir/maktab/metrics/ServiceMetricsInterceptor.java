@@ -0,0 +1,94 @@
+package ir.maktab.metrics;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Times the methods of a class annotated with {@code @Timed}, tagged with the class, the method and the
+ * exception it threw ({@code none} when it returned), and counts the failures under
+ * {@code <name>.errors}. The meters of a method are registered on its first call and looked up by
+ * {@link Method} afterwards, so a call only pays for the lookup and the timer update.
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    public ServiceMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        MethodMeters methodMeters = meters.get(method);
+        if (methodMeters == null)
+            methodMeters = meters.computeIfAbsent(method, key -> new MethodMeters(AopUtils.getTargetClass(invocation.getThis()), key));
+        long started = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodMeters.returned.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodMeters.failed(e.getClass()).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private final class MethodMeters {
+
+        private final String className;
+
+        private final String methodName;
+
+        private final Timed timed;
+
+        private final Timer returned;
+
+        private final Map<Class<?>, Failure> failures = new ConcurrentHashMap<>();
+
+        private MethodMeters(Class<?> type, Method method) {
+            this.className = type.getName();
+            this.methodName = method.getName();
+            this.timed = AnnotationUtils.findAnnotation(type, Timed.class);
+            this.returned = timer(NONE);
+        }
+
+        private Timer failed(Class<? extends Throwable> exception) {
+            Failure failure = failures.computeIfAbsent(exception, key -> new Failure(timer(key.getSimpleName()),
+                    Counter.builder(timed.value() + ".errors")
+                            .tags("class", className, "method", methodName, "exception", key.getSimpleName())
+                            .register(meterRegistry)));
+            failure.counter().increment();
+            return failure.timer();
+        }
+
+        private Timer timer(String exception) {
+            return Timer.builder(timed.value())
+                    .description(timed.description().isEmpty() ? null : timed.description())
+                    .tags(timed.extraTags())
+                    .tags("class", className, "method", methodName, "exception", exception)
+                    .publishPercentileHistogram(timed.histogram())
+                    .publishPercentiles(timed.percentiles().length == 0 ? null : timed.percentiles())
+                    .register(meterRegistry);
+        }
+    }
+
+    private record Failure(Timer timer, Counter counter) {
+    }
+}
@@ -0,0 +1,106 @@
+package ir.maktab.migration;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+
+/**
+ * Brings a PostgreSQL schema that {@code ddl-auto} has already updated to what the mappings cannot
+ * express, such as partial indexes, and the existing rows to what the mappings assume of them. Runs once
+ * every bean is created, so after Hibernate has updated the schema and before the application is ready
+ * and the in-memory indexes are built. Every step can be run again on a migrated schema without
+ * changing it.
+ */
+@Component
+public class SchemaMigrations implements SmartInitializingSingleton {
+
+    private static final String OPEN_STATUSES = "('WAITING_FOR_THE_SUGGESTION_OF_EXPERTS', 'WAITING_FOR_SPECIALIST_SELECTION')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrations(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database))
+            return;
+        orderVersionNotNull();
+        offeredOrdersAwaitSelection();
+        assignedOrdersAcceptOffer();
+        openOrderFeedIndex();
+        sequencesPastExistingIds();
+    }
+
+    /**
+     * Orders written before they had a version have none, so no compare-and-set on the version ever
+     * matched them. They start at version 0, and the column can no longer be left empty.
+     */
+    void orderVersionNotNull() {
+        Integer nullable = jdbcTemplate.queryForObject("select count(*) from information_schema.columns " +
+                "where table_schema= current_schema() and table_name= 'orders' and column_name= 'version' " +
+                "and is_nullable= 'YES'", Integer.class);
+        if (nullable == null || nullable == 0)
+            return;
+        jdbcTemplate.update("update orders set version = 0 where version is null");
+        jdbcTemplate.execute("alter table orders alter column version set default 0");
+        jdbcTemplate.execute("alter table orders alter column version set not null");
+    }
+
+    /**
+     * Offers used to be linked without moving the order on, so orders that have offers can still be
+     * waiting for the suggestion of experts, a status from which no offer can be selected. They wait for
+     * specialist selection, as the first offer now makes them.
+     */
+    void offeredOrdersAwaitSelection() {
+        jdbcTemplate.update("update orders o set order_status = 'WAITING_FOR_SPECIALIST_SELECTION', version = version + 1 " +
+                "where o.order_status = 'WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' " +
+                "and exists (select 1 from orders_offers l where l.orders_id = o.id)");
+    }
+
+    /**
+     * Orders assigned before the accepted offer was recorded were settled for the earliest offer of their
+     * expert, so that is the offer they accepted.
+     */
+    void assignedOrdersAcceptOffer() {
+        jdbcTemplate.update("update orders o set accepted_offer_id = (select min(f.id) from orders_offers l " +
+                "inner join offers f on f.id = l.offers_id where l.orders_id = o.id and f.expert_id = o.expert_id), " +
+                "version = version + 1 where o.expert_id is not null and o.accepted_offer_id is null " +
+                "and exists (select 1 from orders_offers l inner join offers f on f.id = l.offers_id " +
+                "where l.orders_id = o.id and f.expert_id = o.expert_id)");
+    }
+
+    /**
+     * The open-orders feed of an under duty only ever reads open orders in (date and time, id) order, so
+     * its index holds just those, in that order, and closed orders never enter it.
+     */
+    void openOrderFeedIndex() {
+        jdbcTemplate.execute("drop index if exists idx_orders_open_feed");
+        jdbcTemplate.execute("create index if not exists idx_orders_open_feed_partial " +
+                "on orders (under_duty_id, date_and_time, id) where order_status in " + OPEN_STATUSES);
+    }
+
+    /**
+     * Moves every {@code <table>_seq} sequence past the largest id of its table. Rows written while ids
+     * still came from identity columns, or inserted with explicit ids, would otherwise collide with the
+     * ids the sequence hands out. A sequence is only ever moved forward.
+     */
+    void sequencesPastExistingIds() {
+        List<String> tables = jdbcTemplate.queryForList("select t.table_name from information_schema.tables t " +
+                "join pg_sequences s on s.schemaname= t.table_schema and s.sequencename= t.table_name || '_seq' " +
+                "join information_schema.columns c on c.table_schema= t.table_schema and c.table_name= t.table_name " +
+                "and c.column_name= 'id' where t.table_schema= current_schema()", String.class);
+        for (String table : tables)
+            jdbcTemplate.queryForList("select setval('" + table + "_seq', next_id, false) from " +
+                    "(select coalesce(max(id), 0) + 1 as next_id from " + table + ") ids where next_id > " +
+                    "(select coalesce(last_value + increment_by, start_value) from pg_sequences " +
+                    "where schemaname= current_schema() and sequencename= '" + table + "_seq')");
+    }
+}
@@ -0,0 +1,252 @@
+package ir.maktab.notification;
+
+import ir.maktab.dto.OrderNotification;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.exceptions.SubscriptionLimitExceededException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Fans order notifications out to the experts subscribed to an under duty over Server-Sent Events.
+ * Connections are async servlet requests, so an idle subscriber costs a socket and a small buffer,
+ * not a thread. Publishing only enqueues; a small dispatcher pool drains each subscriber's bounded
+ * buffer, and a subscriber whose buffer is full is disconnected instead of slowing everyone else down.
+ * A send that takes longer than the send timeout, because the client stopped reading, gets its
+ * subscriber evicted and its dispatcher interrupted; the emitter is completed once the send returns,
+ * which the connector's write timeout bounds.
+ */
+@Component
+public class OrderNotificationHub {
+
+    private static final Object HEARTBEAT = new Object();
+
+    private final Map<Long, Set<Subscriber>> subscribersByUnderDuty = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService dispatcher;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final long timeoutMillis;
+
+    private final long sendTimeoutNanos;
+
+    public OrderNotificationHub(@Value("${app.order-notifications.dispatchers:4}") int dispatchers,
+                                @Value("${app.order-notifications.buffer-size:64}") int bufferSize,
+                                @Value("${app.order-notifications.max-subscribers:60000}") int maxSubscribers,
+                                @Value("${app.order-notifications.timeout:30m}") Duration timeout,
+                                @Value("${app.order-notifications.send-timeout:5s}") Duration sendTimeout) {
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger counter = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatchers, runnable -> {
+            Thread thread = new Thread(runnable, "order-notifications-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe(Long underDutyId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriptionLimitExceededException("too many subscribers, please try again later.");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(underDutyId, emitter, new ArrayBlockingQueue<>(bufferSize));
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        subscribersByUnderDuty.compute(underDutyId, (id, subscribers) -> {
+            Set<Subscriber> target = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            target.add(subscriber);
+            return target;
+        });
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    public int subscriberCount(Long underDutyId) {
+        Set<Subscriber> subscribers = subscribersByUnderDuty.get(underDutyId);
+        return subscribers == null ? 0 : subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        publish(event.underDutyId(), OrderNotification.of(event));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.leftBidding())
+            publish(event.underDutyId(), OrderNotification.of(event));
+    }
+
+    public void publish(Long underDutyId, OrderNotification notification) {
+        Set<Subscriber> subscribers = subscribersByUnderDuty.get(underDutyId);
+        if (subscribers == null)
+            return;
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.buffer.offer(notification))
+                schedule(subscriber);
+            else
+                drop(subscriber);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-notifications.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        for (Set<Subscriber> subscribers : subscribersByUnderDuty.values()) {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.buffer.isEmpty() && subscriber.buffer.offer(HEARTBEAT))
+                    schedule(subscriber);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.order-notifications.send-check-interval-ms:1000}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : sending) {
+            if (subscriber.interruptIfStalled(now, sendTimeoutNanos))
+                unsubscribe(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribersByUnderDuty.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            try {
+                dispatcher.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                subscriber.draining.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Object message;
+            while ((message = subscriber.buffer.poll()) != null) {
+                send(subscriber, message);
+                if (subscriber.stalled) {
+                    subscriber.emitter.complete();
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(subscriber);
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        if (!subscriber.buffer.isEmpty())
+            schedule(subscriber);
+    }
+
+    private void send(Subscriber subscriber, Object message) throws IOException {
+        subscriber.startSend();
+        sending.add(subscriber);
+        try {
+            if (message == HEARTBEAT)
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            else
+                subscriber.emitter.send(SseEmitter.event()
+                        .name(((OrderNotification) message).type())
+                        .id(String.valueOf(((OrderNotification) message).orderId()))
+                        .data(message));
+        } finally {
+            sending.remove(subscriber);
+            subscriber.endSend();
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (unsubscribe(subscriber))
+            subscriber.emitter.complete();
+    }
+
+    private boolean unsubscribe(Subscriber subscriber) {
+        boolean[] removed = new boolean[1];
+        subscribersByUnderDuty.computeIfPresent(subscriber.underDutyId, (id, subscribers) -> {
+            removed[0] = subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+            subscriber.buffer.clear();
+        }
+        return removed[0];
+    }
+
+    private static final class Subscriber {
+
+        private final Long underDutyId;
+
+        private final SseEmitter emitter;
+
+        private final Queue<Object> buffer;
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Thread sender;
+
+        private long sendStarted;
+
+        private volatile boolean stalled;
+
+        private Subscriber(Long underDutyId, SseEmitter emitter, Queue<Object> buffer) {
+            this.underDutyId = underDutyId;
+            this.emitter = emitter;
+            this.buffer = buffer;
+        }
+
+        private synchronized void startSend() {
+            sender = Thread.currentThread();
+            sendStarted = System.nanoTime();
+        }
+
+        private synchronized void endSend() {
+            sender = null;
+            // an interrupt that came too late to cut the send short must not reach the next subscriber
+            Thread.interrupted();
+        }
+
+        private synchronized boolean interruptIfStalled(long now, long sendTimeoutNanos) {
+            if (sender == null || stalled || now - sendStarted < sendTimeoutNanos)
+                return false;
+            stalled = true;
+            sender.interrupt();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ir.maktab.repository;
+
+import ir.maktab.entity.BalanceSnapshot;
+import ir.maktab.entity.enumeration.AccountType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findTopByAccountTypeAndAccountIdOrderBySequenceNumberDesc(AccountType accountType, Long accountId);
+}
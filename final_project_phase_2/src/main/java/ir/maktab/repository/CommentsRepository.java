@@ -0,0 +1,21 @@
+package ir.maktab.repository;
+
+import ir.maktab.dto.CommentTotals;
+import ir.maktab.entity.Comments;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface CommentsRepository extends JpaRepository<Comments, Long> {
+
+    List<Comments> findAllByExpert_Id(Long expertId);
+
+    @Query("select c.expert.id as expertId, count(c) as count, sum(c.score) as sum " +
+            "from Comments c where c.expert.id in ?1 group by c.expert.id")
+    List<CommentTotals> findTotalsByExpertIds(Collection<Long> expertIds);
+}
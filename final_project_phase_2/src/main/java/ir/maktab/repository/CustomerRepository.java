@@ -1,10 +1,26 @@
 package ir.maktab.repository;
 
+import ir.maktab.dto.OpeningBalance;
 import ir.maktab.entity.Customer;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
+
+    @Query("select c.id from Customer c where c.id in :ids")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select c.id as id, c.validity as validity from Customer c where c.validity > 0 and c.id > ?1 order by c.id")
+    List<OpeningBalance> findOpeningBalancesAfter(Long lastId, Pageable pageable);
+
+    @Query("select c.id as id, c.validity as validity from Customer c where c.id= ?1")
+    Optional<OpeningBalance> findOpeningBalanceById(Long id);
 }
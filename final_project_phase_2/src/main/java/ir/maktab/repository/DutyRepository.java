@@ -7,6 +7,4 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 public interface DutyRepository extends JpaRepository<Duty, Long> {
-
-    Duty findByName(String name);
 }
@@ -1,17 +1,99 @@
 package ir.maktab.repository;
 
+import ir.maktab.dto.ExpertRating;
+import ir.maktab.dto.ExpertSkill;
+import ir.maktab.dto.GroupCount;
+import ir.maktab.dto.Location;
+import ir.maktab.dto.OpeningBalance;
 import ir.maktab.entity.Expert;
 import ir.maktab.entity.enumeration.ExpertStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface ExpertRepository extends JpaRepository<Expert, Long> {
 
+    @EntityGraph(attributePaths = "user")
     List<Expert> findAllByStatus(ExpertStatus status);
 
+    @EntityGraph(attributePaths = "user")
     Expert findByUserEmail(String email);
+
+    @EntityGraph(attributePaths = {"user", "underDutySet", "underDutySet.duty"})
+    @Query("select e from Expert e where e.id= ?1")
+    Optional<Expert> findWithUnderDutiesById(Long id);
+
+    @Query("select e.id as expertId, e.score as score, u.id as underDutyId " +
+            "from Expert e inner join e.underDutySet u where e.status= ?1")
+    List<ExpertSkill> findSkillsByStatus(ExpertStatus status);
+
+    @Query("select e.id as expertId, e.score as score, u.id as underDutyId " +
+            "from Expert e left join e.underDutySet u where e.id= ?1")
+    List<ExpertSkill> findSkillsById(Long id);
+
+    @Query("select e.id from Expert e where e.user.id= ?1")
+    Optional<Long> findIdByUserId(Long userId);
+
+    @Query("select e.status from Expert e where e.id= ?1")
+    ExpertStatus findStatusById(Long id);
+
+    @Query("select e.status as groupKey, count(e) as total from Expert e group by e.status")
+    List<GroupCount> countGroupedByStatus();
+
+    @Query("select e.imageKey from Expert e where e.id= ?1")
+    String findImageKeyById(Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update Expert e set e.imageKey= ?2, e.thumbnailKey= ?3 where e.id= ?1")
+    int updateImageKeys(Long id, String imageKey, String thumbnailKey);
+
+    @Transactional
+    @Modifying
+    @Query("update Expert e set e.status= ?3 where e.id= ?1 and e.status= ?2")
+    int updateStatus(Long id, ExpertStatus from, ExpertStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("update Expert e set e.latitude= ?2, e.longitude= ?3 where e.id= ?1")
+    int updateLocation(Long id, Double latitude, Double longitude);
+
+    @Query("select e.id as id, e.latitude as latitude, e.longitude as longitude " +
+            "from Expert e where e.latitude is not null and e.id > ?1 order by e.id")
+    List<Location> findLocationsAfter(Long lastId, Pageable pageable);
+
+    @Query("select e.id as expertId, e.ratingCount as ratingCount, e.ratingSum as ratingSum, e.score as score " +
+            "from Expert e where e.id > ?1 order by e.id")
+    List<ExpertRating> findRatingsAfter(Long lastId, Pageable pageable);
+
+    @Query("select e.id as id, e.validity as validity from Expert e where e.validity > 0 and e.id > ?1 order by e.id")
+    List<OpeningBalance> findOpeningBalancesAfter(Long lastId, Pageable pageable);
+
+    @Query("select e.id as id, e.validity as validity from Expert e where e.id= ?1")
+    Optional<OpeningBalance> findOpeningBalanceById(Long id);
+
+    @Query("select e.score from Expert e where e.id= ?1")
+    Integer findScoreById(Long id);
+
+    @Modifying
+    @Query("update Expert e set e.ratingCount= coalesce(e.ratingCount, 0) + 1, " +
+            "e.ratingSum= coalesce(e.ratingSum, 0) + ?2, " +
+            "e.score= cast(round((coalesce(e.ratingSum, 0) + ?2) * 1.0 / (coalesce(e.ratingCount, 0) + 1), 0) as Integer) " +
+            "where e.id= ?1")
+    int addRating(Long id, Integer score);
+
+    @Transactional
+    @Modifying
+    @Query("update Expert e set e.ratingCount= ?4, e.ratingSum= ?5, e.score= ?6 where e.id= ?1 " +
+            "and coalesce(e.ratingCount, 0)= ?2 and coalesce(e.ratingSum, 0)= ?3")
+    int correctRating(Long id, long expectedCount, long expectedSum, long ratingCount, long ratingSum, Integer score);
 }
@@ -0,0 +1,25 @@
+package ir.maktab.repository;
+
+import ir.maktab.dto.LedgerTail;
+import ir.maktab.entity.LedgerEntry;
+import ir.maktab.entity.enumeration.AccountType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("select coalesce(sum(e.amount), 0) as amount, coalesce(max(e.sequenceNumber), ?3) as lastSequence " +
+            "from LedgerEntry e where e.accountType= ?1 and e.accountId= ?2 and e.sequenceNumber > ?3")
+    LedgerTail findTail(AccountType accountType, Long accountId, Long afterSequence);
+
+    List<LedgerEntry> findAllByReference(String reference);
+
+    @Query("select distinct e.reference from LedgerEntry e where e.reference in ?1")
+    List<String> findExistingReferences(Collection<String> references);
+}
@@ -1,20 +1,43 @@
 package ir.maktab.repository;
 
+import ir.maktab.dto.GroupCount;
+import ir.maktab.dto.OfferSummary;
 import ir.maktab.entity.Offers;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
 @Repository
 public interface OffersRepository extends JpaRepository<Offers, Long> {
 
+    @EntityGraph(attributePaths = {"expert", "expert.user"})
     @Query("select offer from Offers offer inner join offer.ordersSet order where order.id= ?1 " +
             "order by offer.proposedPrice desc, offer.expert.score desc")
     List<Offers> findAllByOrderId(Long orderId);
 
+    @Query("select offer.id as id, offer.expert.id as expertId, offer.expert.score as expertScore, " +
+            "offer.proposedPrice as proposedPrice, offer.suggestedTime as suggestedTime, " +
+            "offer.durationOfWork as durationOfWork from Offers offer inner join offer.ordersSet order " +
+            "where order.id= ?1 order by offer.proposedPrice desc, offer.expert.score desc")
+    List<OfferSummary> findSummariesByOrderId(Long orderId);
+
+    @Query("select offer.id as id, offer.expert.id as expertId, offer.expert.score as expertScore, " +
+            "offer.proposedPrice as proposedPrice, offer.suggestedTime as suggestedTime, " +
+            "offer.durationOfWork as durationOfWork from Offers offer inner join offer.ordersSet order " +
+            "where order.id= ?1 order by offer.proposedPrice desc, offer.expert.score desc, offer.id")
+    List<OfferSummary> findSummariesByOrderId(Long orderId, Pageable pageable);
+
+    @EntityGraph(attributePaths = {"expert", "expert.user"})
     @Query("select offer from Offers offer inner join offer.ordersSet order where order.id= ?1 and offer.id= ?2")
     Offers findByOrderId(Long orderId, Long offerId);
+
+    @Query("select cast(offer.registerDateAndTime as LocalDate) as groupKey, count(offer) as total from Offers offer " +
+            "where offer.registerDateAndTime >= ?1 group by cast(offer.registerDateAndTime as LocalDate)")
+    List<GroupCount> countGroupedByDaySince(LocalDateTime since);
 }
@@ -0,0 +1,10 @@
+package ir.maktab.repository;
+
+import ir.maktab.entity.OperationalCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+
+@Repository
+public interface OperationalCounterRepository extends JpaRepository<OperationalCounter, Long> {
+}
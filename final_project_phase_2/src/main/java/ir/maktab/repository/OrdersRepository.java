@@ -1,22 +1,164 @@
 package ir.maktab.repository;
 
 
+import ir.maktab.dto.GroupCount;
+import ir.maktab.dto.OfferedOrderState;
+import ir.maktab.dto.OrderLocation;
+import ir.maktab.dto.OrderState;
+import ir.maktab.dto.OrderSummary;
+import ir.maktab.dto.OrderText;
+import ir.maktab.dto.SettlementCandidate;
 import ir.maktab.entity.Orders;
+import ir.maktab.entity.enumeration.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 
 @Repository
 public interface OrdersRepository extends JpaRepository<Orders, Long> {
 
+    @EntityGraph(attributePaths = {"underDuty", "underDuty.duty", "customer", "customer.user", "expert", "expert.user"})
     @Query("select o from Orders o where o.underDuty.id= ?1 and " +
             "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION')")
     List<Orders> findAllByUnderDutyIdAndOrderStatus(Long id);
 
+    @Query("select o.id as id, o.proposedPrice as proposedPrice, o.dateAndTime as dateAndTime, " +
+            "o.address as address, o.description as description from Orders o where o.underDuty.id= ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION') " +
+            "order by o.dateAndTime, o.id")
+    List<OrderSummary> findOpenOrderSummariesByUnderDutyId(Long underDutyId);
+
+    @Query("select o.id as id, o.proposedPrice as proposedPrice, o.dateAndTime as dateAndTime, " +
+            "o.address as address, o.description as description from Orders o where o.underDuty.id= ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION') " +
+            "order by o.dateAndTime, o.id")
+    List<OrderSummary> findOpenOrderFeed(Long underDutyId, Pageable pageable);
+
+    @Query("select o.id as id, o.proposedPrice as proposedPrice, o.dateAndTime as dateAndTime, " +
+            "o.address as address, o.description as description from Orders o where o.underDuty.id= ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION') and " +
+            "(o.dateAndTime, o.id) > (?2, ?3) " +
+            "order by o.dateAndTime, o.id")
+    List<OrderSummary> findOpenOrderFeedAfter(Long underDutyId, LocalDateTime dateAndTime, Long id, Pageable pageable);
+
+    @Query("select o.id as id, o.proposedPrice as proposedPrice, o.dateAndTime as dateAndTime, " +
+            "o.address as address, o.description as description from Orders o where o.id in ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION')")
+    List<OrderSummary> findOpenOrderSummariesByIds(Collection<Long> ids);
+
+    @Query("select o.id as id, o.underDuty.id as underDutyId, o.description as description, o.address as address " +
+            "from Orders o where o.id > ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION') " +
+            "order by o.id")
+    List<OrderText> findOpenOrderTextsAfter(Long afterId, Pageable pageable);
+
+    @Query("select o.id as id, o.underDuty.id as underDutyId, o.latitude as latitude, o.longitude as longitude " +
+            "from Orders o where o.latitude is not null and o.id > ?1 and " +
+            "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION') " +
+            "order by o.id")
+    List<OrderLocation> findOpenOrderLocationsAfter(Long afterId, Pageable pageable);
+
+    @Query("select o.id as id, o.underDuty.id as underDutyId, o.latitude as latitude, o.longitude as longitude " +
+            "from Orders o where o.id= ?1")
+    Optional<OrderLocation> findLocationById(Long id);
+
+    @EntityGraph(attributePaths = {"underDuty", "underDuty.duty", "customer", "customer.user", "expert", "expert.user"})
     @Query("select o from Orders o where o.underDuty.id= ?1 and o.id= ?2 and " +
             "(o.orderStatus='WAITING_FOR_THE_SUGGESTION_OF_EXPERTS' or o.orderStatus='WAITING_FOR_SPECIALIST_SELECTION')")
     Orders findByUnderDutyIdAndOrderStatus(Long underDutyId, Long orderId);
+
+    @EntityGraph(attributePaths = {"underDuty", "underDuty.duty", "customer", "customer.user", "expert", "expert.user",
+            "offersSet", "offersSet.expert", "offersSet.expert.user"})
+    @Query("select o from Orders o where o.id= ?1")
+    Optional<Orders> findWithOffersById(Long id);
+
+    @Query("select o.orderStatus as orderStatus, o.version as version, o.underDuty.id as underDutyId " +
+            "from Orders o where o.id= ?1")
+    Optional<OrderState> findStateById(Long id);
+
+    @Query("select o.orderStatus as orderStatus, o.version as version, o.underDuty.id as underDutyId, " +
+            "offer.expert.id as expertId, offer.suggestedTime as suggestedTime " +
+            "from Orders o inner join o.offersSet offer where o.id= ?1 and offer.id= ?2")
+    Optional<OfferedOrderState> findStateByIdAndOfferId(Long id, Long offerId);
+
+    @Transactional
+    @Modifying
+    @Query("update Orders o set o.orderStatus= ?4, o.version= o.version + 1 " +
+            "where o.id= ?1 and o.version= ?2 and o.orderStatus= ?3")
+    int updateStatus(Long id, Long version, OrderStatus from, OrderStatus to);
+
+    /**
+     * {@code DONE} orders in {@code (afterId, upToId]} that are due for settlement at {@code now}, with the
+     * price of the offer the customer accepted, ordered by order id for keyset paging.
+     */
+    @Query("select o.id as orderId, o.customer.id as customerId, o.expert.id as expertId, " +
+            "o.underDuty.id as underDutyId, offer.proposedPrice as amount, o.settlementAttempts as settlementAttempts " +
+            "from Orders o inner join o.acceptedOffer offer where o.orderStatus= 'DONE' " +
+            "and o.id > ?1 and o.id <= ?2 and (o.settleAfter is null or o.settleAfter <= ?3) order by o.id")
+    List<SettlementCandidate> findSettlementCandidates(Long afterId, Long upToId, LocalDateTime now, Pageable pageable);
+
+    @Query("select min(cast(o.id as Long)) from Orders o where o.orderStatus= 'DONE' " +
+            "and (o.settleAfter is null or o.settleAfter <= ?1)")
+    Long findMinIdDueForSettlement(LocalDateTime now);
+
+    @Query("select max(cast(o.id as Long)) from Orders o where o.orderStatus= 'DONE' " +
+            "and (o.settleAfter is null or o.settleAfter <= ?1)")
+    Long findMaxIdDueForSettlement(LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update Orders o set o.settlementAttempts= ?2, o.settleAfter= ?3, o.version= o.version + 1 " +
+            "where o.id in ?1 and o.orderStatus= 'DONE'")
+    int deferSettlement(Collection<Long> ids, Integer settlementAttempts, LocalDateTime settleAfter);
+
+    long countByOrderStatus(OrderStatus status);
+
+    @Query("select o.orderStatus as groupKey, count(o) as total from Orders o group by o.orderStatus")
+    List<GroupCount> countGroupedByOrderStatus();
+
+    @Query("select o.underDuty.id as groupKey, count(o) as total from Orders o group by o.underDuty.id")
+    List<GroupCount> countGroupedByUnderDuty();
+
+    @Modifying
+    @Query("update Orders o set o.orderStatus= ?3, o.version= o.version + 1 where o.id in ?1 and o.orderStatus= ?2")
+    int updateStatusIn(Collection<Long> ids, OrderStatus from, OrderStatus to);
+
+    /**
+     * Accepts the offer, assigns its expert and moves the order on from {@code from} to {@code to} in one
+     * conditional update.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Orders o set o.expert.id= ?5, o.acceptedOffer.id= ?6, o.orderStatus= ?4, o.version= o.version + 1 " +
+            "where o.id= ?1 and o.version= ?2 and o.orderStatus= ?3 and o.expert is null")
+    int updateExpert(Long id, Long version, OrderStatus from, OrderStatus to, Long expertId, Long offerId);
+
+    /**
+     * Writes the details a customer may edit, if the order is still at {@code version}.
+     */
+    @Transactional
+    @Modifying
+    @Query("update Orders o set o.proposedPrice= ?3, o.description= ?4, o.dateAndTime= ?5, o.address= ?6, " +
+            "o.latitude= ?7, o.longitude= ?8, o.version= o.version + 1 where o.id= ?1 and o.version= ?2")
+    int updateDetails(Long id, Long version, Long proposedPrice, String description, LocalDateTime dateAndTime,
+                      String address, Double latitude, Double longitude);
+
+    /**
+     * Links an offer to an order that is open for offers, unless it is linked already.
+     */
+    @Modifying
+    @Query(value = "insert into orders_offers (orders_id, offers_id) select o.id, ?2 from orders o where o.id= ?1 " +
+            "and o.order_status in ('WAITING_FOR_THE_SUGGESTION_OF_EXPERTS', 'WAITING_FOR_SPECIALIST_SELECTION') " +
+            "and not exists (select 1 from orders_offers l where l.orders_id= ?1 and l.offers_id= ?2)", nativeQuery = true)
+    int linkOffer(Long orderId, Long offerId);
 }
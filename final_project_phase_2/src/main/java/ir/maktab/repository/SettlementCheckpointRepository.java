@@ -0,0 +1,27 @@
+package ir.maktab.repository;
+
+import ir.maktab.entity.SettlementCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+
+@Repository
+public interface SettlementCheckpointRepository extends JpaRepository<SettlementCheckpoint, Long> {
+
+    List<SettlementCheckpoint> findAllByCompletedFalseOrderByPartitionNumber();
+
+    @Transactional
+    @Modifying
+    @Query("update SettlementCheckpoint c set c.lastOrderId= ?2, c.settledOrders= c.settledOrders + ?3 where c.id= ?1")
+    int advance(Long id, Long lastOrderId, long settledOrders);
+
+    @Transactional
+    @Modifying
+    @Query("update SettlementCheckpoint c set c.completed= true where c.id= ?1")
+    int complete(Long id);
+}
@@ -3,7 +3,10 @@ package ir.maktab.repository;
 
 import ir.maktab.entity.UnderDuty;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
@@ -11,7 +14,10 @@ import java.util.List;
 @Repository
 public interface UnderDutyRepository extends JpaRepository<UnderDuty, Long> {
 
-    UnderDuty findByNameAndDuty_Id(String name, Long dutyId);
-
     List<UnderDuty> findAllByDuty_Id(Long dutyId);
+
+    @Transactional
+    @Modifying
+    @Query("update UnderDuty u set u.basePrice= ?2 where u.id= ?1")
+    int updateBasePrice(Long id, Long basePrice);
 }
@@ -2,14 +2,19 @@ package ir.maktab.repository;
 
 import ir.maktab.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    Boolean existsByEmail(String email);
-
     User findByEmail(String email);
-    User findByEmailAndId (String email, Long id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password= ?3 where u.id= ?1 and u.email= ?2")
+    int updatePassword(Long id, String email, String password);
 }
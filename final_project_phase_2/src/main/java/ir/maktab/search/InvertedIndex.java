@@ -0,0 +1,170 @@
+package ir.maktab.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+
+/**
+ * Term to document id postings with prefix matching on the last term of a query. Results are the
+ * newest documents (highest ids) that contain every term of the query and a term starting with its
+ * last one. Documents can carry a group, e.g. their under duty, indexed as a term of its own so a
+ * group filter narrows the scan like any other term. Safe for concurrent updates and searches.
+ */
+public class InvertedIndex {
+
+    private static final String GROUP_PREFIX = "\u0000";
+
+    private static final int MIN_BATCH = 16;
+
+    private static final int MAX_BATCH = 1024;
+
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+    private final NavigableSet<String> vocabulary = new ConcurrentSkipListSet<>();
+
+    private final Map<Long, String[]> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a document or replaces the terms of an indexed one.
+     *
+     * @param group the group to file the document under, or {@code null}
+     */
+    public void put(Long id, Long group, String... texts) {
+        String[] terms = TextTokenizer.terms(texts);
+        if (group != null) {
+            terms = Arrays.copyOf(terms, terms.length + 1);
+            terms[terms.length - 1] = GROUP_PREFIX + group;
+            Arrays.sort(terms);
+        }
+        String[] indexed = terms;
+        documents.compute(id, (key, previous) -> {
+            if (previous != null)
+                for (String term : previous)
+                    if (Arrays.binarySearch(indexed, term) < 0)
+                        unlink(term, key);
+            for (String term : indexed)
+                link(term, key);
+            return indexed;
+        });
+    }
+
+    public void remove(Long id) {
+        documents.computeIfPresent(id, (key, previous) -> {
+            for (String term : previous)
+                unlink(term, key);
+            return null;
+        });
+    }
+
+    public void clear() {
+        new ArrayList<>(documents.keySet()).forEach(this::remove);
+    }
+
+    public int size() {
+        return documents.size();
+    }
+
+    /**
+     * @param group only documents filed under this group, or {@code null} for all
+     * @return ids of up to {@code limit} matching documents, newest first
+     */
+    public List<Long> search(String query, Long group, int limit) {
+        List<String> tokens = TextTokenizer.tokenize(query);
+        if (limit <= 0 || (tokens.isEmpty() && group == null))
+            return List.of();
+        String prefix = tokens.isEmpty() ? null : tokens.get(tokens.size() - 1);
+        List<PostingList> required = new ArrayList<>(tokens.size());
+        for (String term : new LinkedHashSet<>(tokens.subList(0, Math.max(0, tokens.size() - 1)))) {
+            PostingList list = postings.get(term);
+            if (list == null)
+                return List.of();
+            required.add(list);
+        }
+        if (group != null) {
+            PostingList list = postings.get(GROUP_PREFIX + group);
+            if (list == null)
+                return List.of();
+            required.add(list);
+        }
+        if (required.isEmpty())
+            return searchPrefix(prefix, limit);
+
+        required.sort(Comparator.comparingInt(PostingList::size));
+        PostingList shortest = required.get(0);
+        long[] candidates = new long[Math.min(Math.max(limit, MIN_BATCH), MAX_BATCH)];
+        List<Long> found = new ArrayList<>(Math.min(limit, 64));
+        long bound = Long.MAX_VALUE;
+        int count;
+        while (found.size() < limit && (count = shortest.before(bound, candidates)) > 0) {
+            for (int i = 0; i < count && found.size() < limit; i++) {
+                long id = candidates[i];
+                if (containedInAll(required, id) && (prefix == null || hasTermStartingWith(id, prefix)))
+                    found.add(id);
+            }
+            bound = candidates[count - 1];
+        }
+        return found;
+    }
+
+    /**
+     * The newest {@code limit} documents of a union are among the newest {@code limit} of each of its
+     * posting lists, so only the tails are merged.
+     */
+    private List<Long> searchPrefix(String prefix, int limit) {
+        TreeSet<Long> newest = new TreeSet<>(Comparator.reverseOrder());
+        for (String term : vocabulary.subSet(prefix, true, prefix + Character.MAX_VALUE, false)) {
+            PostingList list = postings.get(term);
+            if (list == null)
+                continue;
+            long[] tail = list.tail(limit);
+            for (int i = tail.length - 1; i >= 0; i--) {
+                if (newest.size() == limit && tail[i] <= newest.last())
+                    break;
+                newest.add(tail[i]);
+                if (newest.size() > limit)
+                    newest.pollLast();
+            }
+        }
+        return new ArrayList<>(newest);
+    }
+
+    private static boolean containedInAll(List<PostingList> lists, long id) {
+        for (int i = 1; i < lists.size(); i++)
+            if (!lists.get(i).contains(id))
+                return false;
+        return true;
+    }
+
+    private boolean hasTermStartingWith(long id, String prefix) {
+        String[] terms = documents.get(id);
+        if (terms == null)
+            return false;
+        int index = Arrays.binarySearch(terms, prefix);
+        if (index >= 0)
+            return true;
+        index = -index - 1;
+        return index < terms.length && terms[index].startsWith(prefix);
+    }
+
+    private void link(String term, long id) {
+        postings.compute(term, (key, list) -> {
+            if (list == null) {
+                list = new PostingList();
+                vocabulary.add(key);
+            }
+            list.add(id);
+            return list;
+        });
+    }
+
+    private void unlink(String term, long id) {
+        postings.computeIfPresent(term, (key, list) -> {
+            list.remove(id);
+            if (!list.isEmpty())
+                return list;
+            vocabulary.remove(key);
+            return null;
+        });
+    }
+}
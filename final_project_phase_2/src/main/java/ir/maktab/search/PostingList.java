@@ -0,0 +1,72 @@
+package ir.maktab.search;
+
+import java.util.Arrays;
+
+
+/**
+ * Sorted ids of the documents containing one term, stored as a growable {@code long[]} so a posting
+ * costs eight bytes. New documents usually have the highest id, which makes adding an append.
+ */
+final class PostingList {
+
+    private long[] ids = new long[4];
+
+    private int size;
+
+    synchronized void add(long id) {
+        int index = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0)
+            return;
+        index = -index - 1;
+        if (size == ids.length)
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = id;
+        size++;
+    }
+
+    synchronized void remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0)
+            return;
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        if (size > 16 && size < ids.length >> 2)
+            ids = Arrays.copyOf(ids, ids.length >> 1);
+    }
+
+    synchronized boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Copies the highest ids below {@code bound}, descending, for walking the list from its tail a batch
+     * at a time. The bound, not a position, marks where the walk is, so ids added or removed between
+     * batches cannot make it skip or repeat one.
+     *
+     * @return how many ids were copied into {@code into}, {@code 0} once the list is exhausted
+     */
+    synchronized int before(long bound, long[] into) {
+        int index = Arrays.binarySearch(ids, 0, size, bound);
+        int end = index >= 0 ? index : -index - 1;
+        int count = Math.min(end, into.length);
+        for (int i = 0; i < count; i++)
+            into[i] = ids[end - 1 - i];
+        return count;
+    }
+
+    /**
+     * @return a copy of the {@code count} highest ids, ascending
+     */
+    synchronized long[] tail(int count) {
+        return Arrays.copyOfRange(ids, Math.max(0, size - count), size);
+    }
+}
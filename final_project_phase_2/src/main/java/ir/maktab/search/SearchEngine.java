@@ -0,0 +1,104 @@
+package ir.maktab.search;
+
+import ir.maktab.dto.OrderText;
+import ir.maktab.entity.UnderDuty;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.event.OrderUpdatedEvent;
+import ir.maktab.repository.OrdersRepository;
+import ir.maktab.repository.UnderDutyRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+
+/**
+ * Keyword search over the catalog ({@code UnderDuty} name and explanation) and the open orders
+ * ({@code Orders} description and address, grouped by under duty). Both indexes live in memory, are
+ * built once the application is ready and are kept current from the order events and by the services
+ * that save under duties. Orders drop out of the index once they leave bidding.
+ */
+@Component
+public class SearchEngine {
+
+    private final UnderDutyRepository underDutyRepository;
+
+    private final OrdersRepository ordersRepository;
+
+    private final InvertedIndex underDuties = new InvertedIndex();
+
+    private final InvertedIndex openOrders = new InvertedIndex();
+
+    private final int rebuildBatchSize;
+
+    public SearchEngine(UnderDutyRepository underDutyRepository, OrdersRepository ordersRepository,
+                        @Value("${app.search.rebuild-batch-size:10000}") int rebuildBatchSize) {
+        this.underDutyRepository = underDutyRepository;
+        this.ordersRepository = ordersRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        underDuties.clear();
+        underDutyRepository.findAll().forEach(this::indexUnderDuty);
+        openOrders.clear();
+        long lastId = 0;
+        while (true) {
+            List<OrderText> orders = ordersRepository.findOpenOrderTextsAfter(lastId, PageRequest.of(0, rebuildBatchSize));
+            if (orders.isEmpty())
+                return;
+            orders.forEach(order -> openOrders.put(order.getId(), order.getUnderDutyId(),
+                    order.getDescription(), order.getAddress()));
+            lastId = orders.get(orders.size() - 1).getId();
+        }
+    }
+
+    public void indexUnderDuty(UnderDuty underDuty) {
+        underDuties.put(underDuty.getId(), null, underDuty.getName(), underDuty.getExplanation());
+    }
+
+    public void indexOrder(Long orderId, Long underDutyId, OrderStatus status, String description, String address) {
+        if (status != null && status.isOpenForOffers())
+            openOrders.put(orderId, underDutyId, description, address);
+        else
+            openOrders.remove(orderId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        indexOrder(event.orderId(), event.underDutyId(), event.status(), event.description(), event.address());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderUpdated(OrderUpdatedEvent event) {
+        indexOrder(event.orderId(), event.underDutyId(), event.status(), event.description(), event.address());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (event.to() == null || !event.to().isOpenForOffers())
+            openOrders.remove(event.orderId());
+    }
+
+    /**
+     * @return ids of the matching under duties, newest first
+     */
+    public List<Long> searchUnderDuties(String query, int limit) {
+        return underDuties.search(query, null, limit);
+    }
+
+    /**
+     * @param underDutyId only orders of this under duty, or {@code null} for all
+     * @return ids of the matching open orders, newest first
+     */
+    public List<Long> searchOpenOrders(Long underDutyId, String query, int limit) {
+        return openOrders.search(query, underDutyId, limit);
+    }
+}
@@ -0,0 +1,75 @@
+package ir.maktab.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+
+/**
+ * Splits Persian and English text into search terms. Letters are lower-cased and the Arabic forms of
+ * yeh, kaf, alef and teh marbuta are folded into their Persian equivalents, diacritics, tatweel and
+ * the zero-width non-joiner are dropped, and Persian and Arabic digits become ASCII digits, so the
+ * same word typed on different keyboards yields the same term.
+ */
+public final class TextTokenizer {
+
+    private static final int MAX_TERM_LENGTH = 64;
+
+    private TextTokenizer() {
+    }
+
+    /**
+     * @return the terms of {@code text} in order of appearance, duplicates included
+     */
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null)
+            return terms;
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = normalize(text.charAt(i));
+            if (c == 0)
+                continue;
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < MAX_TERM_LENGTH)
+                    term.append(c);
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty())
+            terms.add(term.toString());
+        return terms;
+    }
+
+    /**
+     * @return the distinct terms of all {@code texts}, sorted
+     */
+    public static String[] terms(String... texts) {
+        TreeSet<String> terms = new TreeSet<>();
+        for (String text : texts)
+            terms.addAll(tokenize(text));
+        return terms.toArray(String[]::new);
+    }
+
+    /**
+     * @return the normalized character, or {@code 0} if it should be dropped
+     */
+    static char normalize(char c) {
+        if (c >= '\u06F0' && c <= '\u06F9') // extended arabic-indic (persian) digits
+            return (char) ('0' + c - '\u06F0');
+        if (c >= '\u0660' && c <= '\u0669') // arabic-indic digits
+            return (char) ('0' + c - '\u0660');
+        if (c >= '\u064B' && c <= '\u0652') // fathatan .. sukun
+            return 0;
+        return switch (c) {
+            case '\u064A', '\u0649' -> '\u06CC'; // arabic yeh, alef maksura -> farsi yeh
+            case '\u0643' -> '\u06A9'; // arabic kaf -> keheh
+            case '\u0623', '\u0625', '\u0671' -> '\u0627'; // hamza and wasla alefs -> alef
+            case '\u0629' -> '\u0647'; // teh marbuta -> heh
+            case '\u0640', '\u0670', '\u200C' -> 0; // tatweel, superscript alef, zero-width non-joiner
+            default -> Character.toLowerCase(c);
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package ir.maktab.security;
+
+import ir.maktab.exceptions.SessionExpiredException;
+import ir.maktab.exceptions.SessionLimitExceededException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Token-keyed sessions held in memory. Lookups are a single map read and never touch the database.
+ * Every successful lookup slides the expiry forward; expired sessions are dropped on access and by
+ * a periodic sweep. The number of live sessions never exceeds {@code app.session.max-sessions}.
+ */
+@Component
+public class SessionStore {
+
+    private static final long TOUCH_RESOLUTION_NANOS = Duration.ofSeconds(1).toNanos();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final long ttlNanos;
+
+    private final int maxSessions;
+
+    public SessionStore(@Value("${app.session.ttl:30m}") Duration ttl,
+                        @Value("${app.session.max-sessions:100000}") int maxSessions) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSessions = maxSessions;
+    }
+
+    public String create(UserPrincipal principal) {
+        if (!reserveSlot()) {
+            sweep();
+            if (!reserveSlot())
+                throw new SessionLimitExceededException("too many active sessions, please try again later.");
+        }
+        String token = newToken();
+        sessions.put(token, new Session(principal, System.nanoTime()));
+        return token;
+    }
+
+    public Optional<UserPrincipal> find(String token) {
+        if (token == null)
+            return Optional.empty();
+        Session session = sessions.get(token);
+        if (session == null)
+            return Optional.empty();
+        long now = System.nanoTime();
+        if (session.isExpired(now, ttlNanos)) {
+            remove(token, session);
+            return Optional.empty();
+        }
+        session.touch(now);
+        return Optional.of(session.principal);
+    }
+
+    public UserPrincipal require(String token) {
+        return find(token).orElseThrow(() -> new SessionExpiredException("your session has expired, please login again."));
+    }
+
+    public void invalidate(String token) {
+        if (token == null)
+            return;
+        Session session = sessions.get(token);
+        if (session != null)
+            remove(token, session);
+    }
+
+    public void invalidateUser(Long userId) {
+        sessions.forEach((token, session) -> {
+            if (session.principal.id().equals(userId))
+                remove(token, session);
+        });
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    @Scheduled(fixedDelayString = "${app.session.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        sessions.forEach((token, session) -> {
+            if (session.isExpired(now, ttlNanos))
+                remove(token, session);
+        });
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSessions)
+                return false;
+            if (size.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    private void remove(String token, Session session) {
+        if (sessions.remove(token, session))
+            size.decrementAndGet();
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static final class Session {
+
+        private final UserPrincipal principal;
+
+        private volatile long lastAccess;
+
+        private Session(UserPrincipal principal, long lastAccess) {
+            this.principal = principal;
+            this.lastAccess = lastAccess;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return now - lastAccess > ttlNanos;
+        }
+
+        private void touch(long now) {
+            if (now - lastAccess > TOUCH_RESOLUTION_NANOS)
+                lastAccess = now;
+        }
+    }
+}
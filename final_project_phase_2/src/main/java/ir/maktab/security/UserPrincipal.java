@@ -0,0 +1,11 @@
+package ir.maktab.security;
+
+import ir.maktab.entity.User;
+import ir.maktab.entity.enumeration.UserType;
+
+public record UserPrincipal(Long id, UserType userType, String email) {
+
+    public static UserPrincipal of(User user) {
+        return new UserPrincipal(user.getId(), user.getUserType(), user.getEmail());
+    }
+}
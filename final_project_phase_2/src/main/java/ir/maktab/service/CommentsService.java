@@ -0,0 +1,121 @@
+package ir.maktab.service;
+
+import ir.maktab.cache.OfferRankingCache;
+import ir.maktab.dto.CommentTotals;
+import ir.maktab.dto.ExpertRating;
+import ir.maktab.entity.Comments;
+import ir.maktab.exceptions.ExpertNotFoundException;
+import ir.maktab.exceptions.InvalidCommentScoreException;
+import ir.maktab.matching.ExpertMatchingEngine;
+import ir.maktab.repository.CommentsRepository;
+import ir.maktab.repository.ExpertRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+
+/**
+ * Saving a comment bumps the expert's running rating count and sum in the same transaction, and the
+ * expert's score becomes the rounded average, so ranking by score never aggregates the comments table.
+ * {@link #reconcileRatings()} re-derives the counters and the score in id-ordered batches and repairs any
+ * drift. This service is the only writer of the score.
+ */
+@Service
+public class CommentsService {
+
+    private static final int MIN_SCORE = 1;
+
+    private static final int MAX_SCORE = 5;
+
+    private final CommentsRepository commentsRepository;
+
+    private final ExpertRepository expertRepository;
+
+    private final OfferRankingCache offerRankingCache;
+
+    private final ExpertMatchingEngine expertMatchingEngine;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int reconcileBatchSize;
+
+    public CommentsService(CommentsRepository commentsRepository, ExpertRepository expertRepository,
+                           OfferRankingCache offerRankingCache, ExpertMatchingEngine expertMatchingEngine,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.rating-reconciler.batch-size:500}") int reconcileBatchSize) {
+        this.commentsRepository = commentsRepository;
+        this.expertRepository = expertRepository;
+        this.offerRankingCache = offerRankingCache;
+        this.expertMatchingEngine = expertMatchingEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileBatchSize = reconcileBatchSize;
+    }
+
+    public Comments save(Comments comments) {
+        if (comments.getScore() == null || comments.getScore() < MIN_SCORE || comments.getScore() > MAX_SCORE)
+            throw new InvalidCommentScoreException("the score must be between " + MIN_SCORE + " and " + MAX_SCORE + ".");
+        Long expertId = comments.getExpert().getId();
+        Integer score = transactionTemplate.execute(status -> {
+            commentsRepository.save(comments);
+            if (expertRepository.addRating(expertId, comments.getScore()) == 0)
+                throw new ExpertNotFoundException("no expert found with this ID.");
+            return expertRepository.findScoreById(expertId);
+        });
+        publishScore(expertId, score);
+        return comments;
+    }
+
+    public List<Comments> findAllByExpertId(Long expertId) {
+        return commentsRepository.findAllByExpert_Id(expertId);
+    }
+
+    /**
+     * @return the number of experts whose rating had drifted and was corrected
+     */
+    @Scheduled(initialDelayString = "${app.rating-reconciler.interval-ms:3600000}",
+            fixedDelayString = "${app.rating-reconciler.interval-ms:3600000}")
+    public int reconcileRatings() {
+        int corrected = 0;
+        long lastId = 0;
+        while (true) {
+            List<ExpertRating> ratings = expertRepository.findRatingsAfter(lastId, PageRequest.of(0, reconcileBatchSize));
+            if (ratings.isEmpty())
+                return corrected;
+            Map<Long, CommentTotals> totals = commentsRepository
+                    .findTotalsByExpertIds(ratings.stream().map(ExpertRating::getExpertId).toList())
+                    .stream().collect(Collectors.toMap(CommentTotals::getExpertId, Function.identity()));
+            for (ExpertRating rating : ratings) {
+                CommentTotals total = totals.get(rating.getExpertId());
+                long count = total == null ? 0 : total.getCount();
+                long sum = total == null ? 0 : total.getSum();
+                long storedCount = rating.getRatingCount() == null ? 0 : rating.getRatingCount();
+                long storedSum = rating.getRatingSum() == null ? 0 : rating.getRatingSum();
+                Integer score = count == 0 ? null : (int) Math.round((double) sum / count);
+                // an expert nobody has rated yet may still have the score it was created with
+                boolean scoreMatches = count == 0 ? rating.getScore() == null || rating.getScore() == 0
+                        : score.equals(rating.getScore());
+                if (count == storedCount && sum == storedSum && scoreMatches)
+                    continue;
+                // a comment saved since the batch was read changes the counters and makes this a no-op
+                if (expertRepository.correctRating(rating.getExpertId(), storedCount, storedSum, count, sum, score) == 1) {
+                    publishScore(rating.getExpertId(), score);
+                    corrected++;
+                }
+            }
+            lastId = ratings.get(ratings.size() - 1).getExpertId();
+        }
+    }
+
+    private void publishScore(Long expertId, Integer score) {
+        offerRankingCache.updateExpertScore(expertId, score);
+        expertMatchingEngine.rescore(expertId, score);
+    }
+}
@@ -1,5 +1,8 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.dto.WalletAccount;
 import ir.maktab.entity.Customer;
 import ir.maktab.exceptions.UserNotFoundException;
 import ir.maktab.repository.CustomerRepository;
@@ -7,17 +10,26 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class CustomerService {
 
     private final CustomerRepository customerRepository;
 
-    public CustomerService(CustomerRepository customerRepository) {
+    private final WalletService walletService;
+
+    public CustomerService(CustomerRepository customerRepository, WalletService walletService) {
         this.customerRepository = customerRepository;
+        this.walletService = walletService;
     }
 
     public Customer save(Customer customer) {
-        return customerRepository.save(customer);
+        boolean opening = customer.getId() == null;
+        Customer savedCustomer = customerRepository.save(customer);
+        if (opening)
+            customerRepository.findOpeningBalanceById(savedCustomer.getId()).ifPresent(balance ->
+                    walletService.open(WalletAccount.customer(balance.getId()), balance.getValidity()));
+        return savedCustomer;
     }
 
     public List<Customer> findAll() {
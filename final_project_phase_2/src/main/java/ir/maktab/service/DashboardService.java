@@ -0,0 +1,184 @@
+package ir.maktab.service;
+
+import ir.maktab.counter.OperationalCounters;
+import ir.maktab.dto.DashboardCounters;
+import ir.maktab.dto.GroupCount;
+import ir.maktab.entity.OperationalCounter;
+import ir.maktab.entity.enumeration.CounterCategory;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.repository.ExpertRepository;
+import ir.maktab.repository.OffersRepository;
+import ir.maktab.repository.OperationalCounterRepository;
+import ir.maktab.repository.OrdersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+
+/**
+ * Serves the admin dashboard from {@link OperationalCounters}. The counters are written to the
+ * {@code OperationalCounter} table every {@code app.counters.flush-interval-ms} and read back from it on
+ * startup, so a restart does not count the orders, experts and offers tables again. Counts that drift,
+ * e.g. through a crash between two flushes, are repaired by {@link #reconcile()}, which runs every
+ * {@code app.counters.reconcile-interval-ms} and on startup when nothing was flushed yet. Offers are
+ * kept per day for the last {@code app.counters.offer-days} days.
+ */
+@Service
+public class DashboardService {
+
+    private final OperationalCounters counters;
+
+    private final OperationalCounterRepository counterRepository;
+
+    private final OrdersRepository ordersRepository;
+
+    private final ExpertRepository expertRepository;
+
+    private final OffersRepository offersRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int offerDays;
+
+    public DashboardService(OperationalCounters counters, OperationalCounterRepository counterRepository,
+                            OrdersRepository ordersRepository, ExpertRepository expertRepository,
+                            OffersRepository offersRepository, PlatformTransactionManager transactionManager,
+                            @Value("${app.counters.offer-days:30}") int offerDays) {
+        this.counters = counters;
+        this.counterRepository = counterRepository;
+        this.ordersRepository = ordersRepository;
+        this.expertRepository = expertRepository;
+        this.offersRepository = offersRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.offerDays = offerDays;
+    }
+
+    public DashboardCounters getCounters() {
+        return counters.snapshot();
+    }
+
+    public long countOrders(OrderStatus status) {
+        return counters.orders(status);
+    }
+
+    public long countOrdersOfUnderDuty(Long underDutyId) {
+        return counters.ordersOfUnderDuty(underDutyId);
+    }
+
+    public long countExperts(ExpertStatus status) {
+        return counters.experts(status);
+    }
+
+    public long countOffers(LocalDate day) {
+        return counters.offers(day);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<OperationalCounter> flushed = counterRepository.findAll();
+        if (flushed.isEmpty()) {
+            reconcile();
+            return;
+        }
+        for (OperationalCounter counter : flushed) {
+            long value = counter.getCounterValue();
+            switch (counter.getCategory()) {
+                case ORDERS_BY_STATUS -> counters.setOrders(OrderStatus.valueOf(counter.getCounterKey()), value);
+                case ORDERS_BY_UNDER_DUTY -> counters.setOrdersOfUnderDuty(Long.valueOf(counter.getCounterKey()), value);
+                case EXPERTS_BY_STATUS -> counters.setExperts(ExpertStatus.valueOf(counter.getCounterKey()), value);
+                case OFFERS_BY_DAY -> counters.setOffers(LocalDate.parse(counter.getCounterKey()), value);
+            }
+        }
+        counters.retainOffersSince(firstOfferDay());
+    }
+
+    /**
+     * Recounts every counter with one grouped query per category. Groups that no longer have any rows
+     * are set to zero.
+     */
+    @Scheduled(fixedDelayString = "${app.counters.reconcile-interval-ms:3600000}",
+            initialDelayString = "${app.counters.reconcile-interval-ms:3600000}")
+    public synchronized void reconcile() {
+        DashboardCounters current = counters.snapshot();
+
+        Map<Object, Long> ordersByStatus = totals(ordersRepository.countGroupedByOrderStatus());
+        for (OrderStatus status : OrderStatus.values())
+            counters.setOrders(status, ordersByStatus.getOrDefault(status, 0L));
+
+        Map<Object, Long> ordersByUnderDuty = totals(ordersRepository.countGroupedByUnderDuty());
+        current.ordersByUnderDuty().keySet().forEach(id -> counters.setOrdersOfUnderDuty(id, ordersByUnderDuty.getOrDefault(id, 0L)));
+        ordersByUnderDuty.forEach((id, total) -> counters.setOrdersOfUnderDuty((Long) id, total));
+
+        Map<Object, Long> expertsByStatus = totals(expertRepository.countGroupedByStatus());
+        for (ExpertStatus status : ExpertStatus.values())
+            counters.setExperts(status, expertsByStatus.getOrDefault(status, 0L));
+
+        LocalDate firstDay = firstOfferDay();
+        Map<Object, Long> offersByDay = totals(offersRepository.countGroupedByDaySince(firstDay.atStartOfDay()));
+        counters.retainOffersSince(firstDay);
+        current.offersByDay().keySet().forEach(day -> counters.setOffers(day, offersByDay.getOrDefault(day, 0L)));
+        offersByDay.forEach((day, total) -> counters.setOffers((LocalDate) day, total));
+    }
+
+    /**
+     * Writes the current counters to the {@code OperationalCounter} table, one row per counter, and
+     * drops the rows of days that fell out of the offer window.
+     */
+    @Scheduled(fixedDelayString = "${app.counters.flush-interval-ms:10000}",
+            initialDelayString = "${app.counters.flush-interval-ms:10000}")
+    public synchronized void flush() {
+        LocalDate firstDay = firstOfferDay();
+        counters.retainOffersSince(firstDay);
+        DashboardCounters snapshot = counters.snapshot();
+        Map<CounterCategory, Map<String, Long>> values = new EnumMap<>(CounterCategory.class);
+        values.put(CounterCategory.ORDERS_BY_STATUS, keyedByName(snapshot.ordersByStatus()));
+        values.put(CounterCategory.ORDERS_BY_UNDER_DUTY, keyedByName(snapshot.ordersByUnderDuty()));
+        values.put(CounterCategory.EXPERTS_BY_STATUS, keyedByName(snapshot.expertsByStatus()));
+        values.put(CounterCategory.OFFERS_BY_DAY, keyedByName(snapshot.offersByDay()));
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<OperationalCounter> stale = new ArrayList<>();
+            for (OperationalCounter counter : counterRepository.findAll()) {
+                Long value = values.get(counter.getCategory()).remove(counter.getCounterKey());
+                if (value == null) {
+                    if (counter.getCategory() == CounterCategory.OFFERS_BY_DAY)
+                        stale.add(counter);
+                } else if (!value.equals(counter.getCounterValue())) {
+                    counter.setCounterValue(value);
+                    counter.setUpdatedAt(now);
+                }
+            }
+            counterRepository.deleteAll(stale);
+            List<OperationalCounter> created = new ArrayList<>();
+            values.forEach((category, keys) -> keys.forEach((key, value) -> created.add(OperationalCounter.builder()
+                    .category(category).counterKey(key).counterValue(value).updatedAt(now).build())));
+            counterRepository.saveAll(created);
+        });
+    }
+
+    private LocalDate firstOfferDay() {
+        return LocalDate.now().minusDays(offerDays - 1L);
+    }
+
+    private static Map<Object, Long> totals(List<GroupCount> counts) {
+        Map<Object, Long> totals = new HashMap<>();
+        counts.stream().filter(count -> count.getGroupKey() != null)
+                .forEach(count -> totals.put(count.getGroupKey(), count.getTotal()));
+        return totals;
+    }
+
+    private static Map<String, Long> keyedByName(Map<?, Long> values) {
+        Map<String, Long> keyed = new HashMap<>();
+        values.forEach((key, value) -> keyed.put(key.toString(), value));
+        return keyed;
+    }
+}
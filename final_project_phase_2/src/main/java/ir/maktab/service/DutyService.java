@@ -1,14 +1,23 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.config.CacheConfig;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.dto.DutyView;
 import ir.maktab.entity.Duty;
+import ir.maktab.exceptions.ConstraintViolations;
 import ir.maktab.exceptions.DutyExistException;
 import ir.maktab.exceptions.DutyNotFoundException;
 import ir.maktab.repository.DutyRepository;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class DutyService {
 
@@ -18,15 +27,20 @@ public class DutyService {
         this.dutyRepository = dutyRepository;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.DUTIES, allEntries = true)
     public Duty save(Duty duty) {
-        Duty foundedDuty = dutyRepository.findByName(duty.getName());
-        if (foundedDuty == null) {
-            return dutyRepository.save(duty);
-        } else throw new DutyExistException("a duty already exists with this name.");
+        try {
+            return dutyRepository.saveAndFlush(duty);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.DUTY_NAME))
+                throw new DutyExistException("a duty already exists with this name.");
+            throw e;
+        }
     }
 
-    public List<Duty> findAll() {
-        return dutyRepository.findAll();
+    @Cacheable(CacheConfig.DUTIES)
+    public List<DutyView> findAll() {
+        return dutyRepository.findAll().stream().map(DutyView::of).toList();
     }
 
     public Duty findById(long id) {
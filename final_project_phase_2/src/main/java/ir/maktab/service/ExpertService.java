@@ -1,31 +1,94 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.cache.OfferRankingCache;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.counter.OperationalCounters;
+import ir.maktab.dto.ExpertCandidate;
+import ir.maktab.dto.WalletAccount;
 import ir.maktab.entity.Expert;
 import ir.maktab.entity.UnderDuty;
 import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.event.ExpertStatusChangedEvent;
 import ir.maktab.exceptions.ExpertNotFoundException;
+import ir.maktab.exceptions.ImageNotFoundException;
+import ir.maktab.geo.GeoIndex;
+import ir.maktab.geo.GeoPoint;
+import ir.maktab.matching.ExpertMatchingEngine;
 import ir.maktab.repository.ExpertRepository;
+import ir.maktab.storage.ImageIngestionPipeline;
+import ir.maktab.storage.ImageStore;
+import ir.maktab.storage.ProcessedImage;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class ExpertService {
 
     private final ExpertRepository expertRepository;
 
-    public ExpertService(ExpertRepository expertRepository) {
+    private final ImageStore imageStore;
+
+    private final ImageIngestionPipeline imageIngestionPipeline;
+
+    private final OfferRankingCache offerRankingCache;
+
+    private final ExpertMatchingEngine expertMatchingEngine;
+
+    private final GeoIndex geoIndex;
+
+    private final OperationalCounters operationalCounters;
+
+    private final WalletService walletService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public ExpertService(ExpertRepository expertRepository, ImageStore imageStore,
+                         ImageIngestionPipeline imageIngestionPipeline, OfferRankingCache offerRankingCache,
+                         ExpertMatchingEngine expertMatchingEngine, GeoIndex geoIndex,
+                         OperationalCounters operationalCounters, WalletService walletService,
+                         ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
         this.expertRepository = expertRepository;
+        this.imageStore = imageStore;
+        this.imageIngestionPipeline = imageIngestionPipeline;
+        this.offerRankingCache = offerRankingCache;
+        this.expertMatchingEngine = expertMatchingEngine;
+        this.geoIndex = geoIndex;
+        this.operationalCounters = operationalCounters;
+        this.walletService = walletService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Expert save(Expert expert) {
-        return expertRepository.save(expert);
+        GeoPoint.of(expert.getLatitude(), expert.getLongitude());
+        ExpertStatus loadedStatus = expert.getLoadedStatus();
+        boolean opening = expert.getId() == null;
+        Expert savedExpert = expertRepository.save(expert);
+        if (opening)
+            expertRepository.findOpeningBalanceById(savedExpert.getId()).ifPresent(balance ->
+                    walletService.open(WalletAccount.expert(balance.getId()), balance.getValidity()));
+        operationalCounters.expertStatusChanged(loadedStatus, savedExpert.getStatus());
+        reindex(savedExpert, savedExpert.getScore());
+        return savedExpert;
     }
 
     public List<Expert> findAllByStatus(ExpertStatus status) {
@@ -33,21 +96,87 @@ public class ExpertService {
     }
 
     public Expert findById(long id) {
-        return expertRepository.findById(id).orElseThrow(() -> new ExpertNotFoundException("no expert found with this ID."));
+        return expertRepository.findWithUnderDutiesById(id).orElseThrow(() -> new ExpertNotFoundException("no expert found with this ID."));
     }
 
-    public void saveExpertImage(String email) throws IOException {
+    /**
+     * @return whether the user is an accepted expert serving the under duty
+     */
+    public boolean serves(Long userId, Long underDutyId) {
+        return expertRepository.findIdByUserId(userId)
+                .map(expertId -> expertMatchingEngine.serves(expertId, underDutyId))
+                .orElse(false);
+    }
+
+    public CompletableFuture<ProcessedImage> uploadExpertImage(Long expertId, Path source) {
+        return imageIngestionPipeline.submit(source).thenApply(image -> {
+            if (expertRepository.updateImageKeys(expertId, image.imageKey(), image.thumbnailKey()) == 0)
+                throw new ExpertNotFoundException("no expert found with this ID.");
+            return image;
+        });
+    }
+
+    public long writeExpertImage(Long expertId, WritableByteChannel target) throws IOException {
+        String imageKey = expertRepository.findImageKeyById(expertId);
+        if (imageKey == null)
+            throw new ImageNotFoundException("this expert has no image.");
+        return imageStore.transferTo(imageKey, target);
+    }
+
+    public Path saveExpertImage(String email, Path directory) throws IOException {
         Expert expert = expertRepository.findByUserEmail(email);
-        if (expert != null) {
-            byte[] data = expert.getImageUrl();
-            ByteArrayInputStream bis = new ByteArrayInputStream(data);
-            BufferedImage image = ImageIO.read(bis);
-            ImageIO.write(image, "jpg", new File("H:\\maktab83\\final_project_phase2\\final_project_phase_2\\src\\main\\java\\ir\\maktab\\images\\" + expert.getUser().getLastname() + ".jpg"));
+        if (expert == null)
+            throw new ExpertNotFoundException("no expert found with this email.");
+        if (expert.getImageKey() == null)
+            throw new ImageNotFoundException("this expert has no image.");
+        Files.createDirectories(directory);
+        Path target = directory.resolve(expert.getUser().getLastname() + ".jpg");
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            imageStore.transferTo(expert.getImageKey(), out);
         }
+        return target;
     }
 
     public Expert update(Expert expert) {
-        return expertRepository.save(expert);
+        GeoPoint.of(expert.getLatitude(), expert.getLongitude());
+        ExpertStatus loadedStatus = expert.getLoadedStatus();
+        Expert updatedExpert = expertRepository.save(expert);
+        operationalCounters.expertStatusChanged(loadedStatus, updatedExpert.getStatus());
+        // the merged copy may carry a score read before a comment changed it
+        reindex(updatedExpert, expertRepository.findScoreById(updatedExpert.getId()));
+        return updatedExpert;
+    }
+
+    /**
+     * Moves the expert to {@code status} with an update conditional on the status it was read with, read
+     * again if another change came first. The dashboard counts the change once it is committed.
+     */
+    public void updateExpertStatus(Long expertId, ExpertStatus status) {
+        boolean changed;
+        do {
+            ExpertStatus previousStatus = expertRepository.findStatusById(expertId);
+            if (previousStatus == null)
+                throw new ExpertNotFoundException("no expert found with this ID.");
+            changed = Boolean.TRUE.equals(transactionTemplate.execute(transaction -> {
+                if (expertRepository.updateStatus(expertId, previousStatus, status) == 0)
+                    return false;
+                eventPublisher.publishEvent(new ExpertStatusChangedEvent(expertId, previousStatus, status));
+                return true;
+            }));
+        } while (!changed);
+        expertMatchingEngine.refresh(expertId, status);
+    }
+
+    public void updateExpertLocation(Long expertId, Double latitude, Double longitude) {
+        GeoPoint location = GeoPoint.of(latitude, longitude);
+        if (expertRepository.updateLocation(expertId, latitude, longitude) == 0)
+            throw new ExpertNotFoundException("no expert found with this ID.");
+        geoIndex.indexExpert(expertId, location);
+    }
+
+    public List<ExpertCandidate> findTopCandidates(Long underDutyId, int limit) {
+        return expertMatchingEngine.findTopCandidates(underDutyId, limit);
     }
 
     public void addExpertToUnderDuty(Expert expert, UnderDuty underDuty) {
@@ -57,4 +186,12 @@ public class ExpertService {
     public void removeExpertFromUnderDuty(Expert expert, UnderDuty underDuty) {
         expert.removeUnderDuties(underDuty);
     }
+
+    private void reindex(Expert expert, Integer score) {
+        Set<Long> underDutyIds = Hibernate.isInitialized(expert.getUnderDutySet()) && expert.getUnderDutySet() != null
+                ? expert.getUnderDutySet().stream().map(UnderDuty::getId).collect(Collectors.toSet())
+                : null;
+        expertMatchingEngine.index(expert.getId(), expert.getStatus(), score, underDutyIds);
+        geoIndex.indexExpert(expert.getId(), GeoPoint.of(expert.getLatitude(), expert.getLongitude()));
+    }
 }
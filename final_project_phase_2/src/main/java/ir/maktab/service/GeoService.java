@@ -0,0 +1,86 @@
+package ir.maktab.service;
+
+import ir.maktab.dto.NearbyExpert;
+import ir.maktab.dto.NearbyOrder;
+import ir.maktab.dto.OrderLocation;
+import ir.maktab.dto.OrderSummary;
+import ir.maktab.exceptions.InvalidLocationException;
+import ir.maktab.exceptions.OrderNotFoundException;
+import ir.maktab.geo.GeoIndex;
+import ir.maktab.geo.GeoMatch;
+import ir.maktab.geo.GeoPoint;
+import ir.maktab.matching.ExpertMatchingEngine;
+import ir.maktab.repository.OrdersRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+
+/**
+ * Location based lookups: the open orders an expert can take near a point, and the accepted experts
+ * nearest to an order. Both are answered from {@link GeoIndex}; the database is read only for the
+ * order summaries that are returned.
+ */
+@Service
+public class GeoService {
+
+    private final GeoIndex geoIndex;
+
+    private final ExpertMatchingEngine expertMatchingEngine;
+
+    private final OrdersRepository ordersRepository;
+
+    private final double maxRadiusKm;
+
+    private final int maxResults;
+
+    public GeoService(GeoIndex geoIndex, ExpertMatchingEngine expertMatchingEngine, OrdersRepository ordersRepository,
+                      @Value("${app.geo.max-radius-km:50}") double maxRadiusKm,
+                      @Value("${app.geo.max-results:100}") int maxResults) {
+        this.geoIndex = geoIndex;
+        this.expertMatchingEngine = expertMatchingEngine;
+        this.ordersRepository = ordersRepository;
+        this.maxRadiusKm = maxRadiusKm;
+        this.maxResults = maxResults;
+    }
+
+    /**
+     * Open orders of the expert's under duties within {@code radiusKm} of {@code location}, nearest first.
+     *
+     * @param location where to search from, or {@code null} for the expert's saved location
+     */
+    public List<NearbyOrder> findNearbyOpenOrders(Long expertId, GeoPoint location, double radiusKm, int limit) {
+        GeoPoint origin = location != null ? location : geoIndex.findExpertLocation(expertId);
+        if (origin == null)
+            throw new InvalidLocationException("no location is known for this expert.");
+        List<GeoMatch> matches = geoIndex.findOpenOrdersWithin(origin, Math.min(radiusKm, maxRadiusKm),
+                expertMatchingEngine.findUnderDutyIds(expertId), Math.min(limit, maxResults));
+        if (matches.isEmpty())
+            return List.of();
+        Map<Long, OrderSummary> summaries = new HashMap<>();
+        ordersRepository.findOpenOrderSummariesByIds(matches.stream().map(GeoMatch::id).toList())
+                .forEach(summary -> summaries.put(summary.getId(), summary));
+        List<NearbyOrder> orders = new ArrayList<>(matches.size());
+        for (GeoMatch match : matches) {
+            OrderSummary summary = summaries.get(match.id());
+            if (summary != null)
+                orders.add(new NearbyOrder(summary, match.distanceKm()));
+        }
+        return orders;
+    }
+
+    /**
+     * Accepted experts of the order's under duty nearest to the order, no farther than
+     * {@code app.geo.max-radius-km}.
+     */
+    public List<NearbyExpert> findNearestExperts(Long orderId, int limit) {
+        OrderLocation order = ordersRepository.findLocationById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("no order found with this ID."));
+        GeoPoint origin = GeoPoint.of(order.getLatitude(), order.getLongitude());
+        if (origin == null)
+            throw new InvalidLocationException("this order has no location.");
+        return geoIndex.findNearestExperts(origin, order.getUnderDutyId(), Math.min(limit, maxResults), maxRadiusKm)
+                .stream().map(match -> new NearbyExpert(match.id(), match.distanceKm())).toList();
+    }
+}
@@ -1,23 +1,39 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.cache.OfferRankingCache;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.counter.OperationalCounters;
+import ir.maktab.dto.OfferSummary;
+import ir.maktab.dto.RankedOffer;
 import ir.maktab.entity.Offers;
 import ir.maktab.entity.Orders;
 import ir.maktab.exceptions.DateAndTimeException;
 import ir.maktab.exceptions.LessProposedPriceException;
 import ir.maktab.exceptions.OffersNotFoundException;
 import ir.maktab.repository.OffersRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class OffersService {
 
     private final OffersRepository offersRepository;
 
-    public OffersService(OffersRepository offersRepository) {
+    private final OfferRankingCache offerRankingCache;
+
+    private final OperationalCounters operationalCounters;
+
+    public OffersService(OffersRepository offersRepository, OfferRankingCache offerRankingCache,
+                         OperationalCounters operationalCounters) {
         this.offersRepository = offersRepository;
+        this.offerRankingCache = offerRankingCache;
+        this.operationalCounters = operationalCounters;
     }
 
     public Offers save(Offers offers, Orders order) {
@@ -28,7 +44,15 @@ public class OffersService {
         } else if (offers.getSuggestedTime().isBefore(order.getDateAndTime())) {
             throw new DateAndTimeException("The suggested time to start the work is less than the time entered by the customer.");
         } else {
-            return offersRepository.save(offers);
+            boolean created = offers.getId() == null;
+            Offers savedOffers = offersRepository.save(offers);
+            // a new offer is ranked once OrdersService.addOffers has linked it to the order
+            if (created)
+                operationalCounters.offerCreated(savedOffers.getRegisterDateAndTime() == null
+                        ? LocalDate.now() : savedOffers.getRegisterDateAndTime().toLocalDate());
+            else
+                offerRankingCache.add(order.getId(), RankedOffer.of(savedOffers));
+            return savedOffers;
         }
     }
 
@@ -36,6 +60,31 @@ public class OffersService {
         return offersRepository.findAllByOrderId(orderId);
     }
 
+    public List<OfferSummary> findOfferSummaries(Long orderId) {
+        return offersRepository.findSummariesByOrderId(orderId);
+    }
+
+    public List<RankedOffer> findRankedOffers(Long orderId) {
+        return offerRankingCache.get(orderId, id -> offersRepository
+                .findSummariesByOrderId(id, PageRequest.of(0, offerRankingCache.topK()))
+                .stream().map(RankedOffer::of).toList());
+    }
+
+    public RankedOffer findBestOffer(Long orderId) {
+        List<RankedOffer> offers = findRankedOffers(orderId);
+        if (offers.isEmpty())
+            throw new OffersNotFoundException("no offer found for this order.");
+        return offers.get(0);
+    }
+
+    public void addToRanking(Long orderId, Offers offers) {
+        offerRankingCache.add(orderId, RankedOffer.of(offers));
+    }
+
+    public void evictRanking(Long orderId) {
+        offerRankingCache.evict(orderId);
+    }
+
     public Offers findById(long id) {
         return offersRepository.findById(id).orElseThrow(() -> new OffersNotFoundException("no offer found with this ID."));
     }
@@ -0,0 +1,209 @@
+package ir.maktab.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ir.maktab.dto.OrderImportError;
+import ir.maktab.dto.OrderImportReport;
+import ir.maktab.dto.OrderImportRow;
+import ir.maktab.dto.UnderDutyView;
+import ir.maktab.entity.Customer;
+import ir.maktab.entity.Orders;
+import ir.maktab.entity.UnderDuty;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.exceptions.InvalidImportRowException;
+import ir.maktab.exceptions.OrderImportException;
+import ir.maktab.imports.CsvOrderRowReader;
+import ir.maktab.imports.NdjsonOrderRowReader;
+import ir.maktab.imports.OrderRowReader;
+import ir.maktab.repository.CustomerRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Streams orders from partner files into the database. Rows are validated with the same rules as
+ * {@link OrdersService#save(Orders)} and written {@code batchSize} at a time, each batch in its own
+ * transaction that is flushed and cleared, so memory does not grow with the size of the file.
+ * A failed batch only rolls back its own rows. An {@link OrderCreatedEvent} is published for each row
+ * once its batch has committed.
+ */
+@Service
+public class OrderImportService {
+
+    private final OrdersService ordersService;
+
+    private final UnderDutyService underDutyService;
+
+    private final CustomerRepository customerRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+
+    private final int maxErrors;
+
+    public OrderImportService(OrdersService ordersService, UnderDutyService underDutyService,
+                              CustomerRepository customerRepository, EntityManager entityManager,
+                              PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${app.order-import.batch-size:500}") int batchSize,
+                              @Value("${app.order-import.max-errors:1000}") int maxErrors) {
+        this.ordersService = ordersService;
+        this.underDutyService = underDutyService;
+        this.customerRepository = customerRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    public OrderImportReport importCsv(InputStream inputStream) {
+        try {
+            return importRows(new CsvOrderRowReader(reader(inputStream)));
+        } catch (IOException e) {
+            throw new OrderImportException("the import file could not be read.");
+        }
+    }
+
+    public OrderImportReport importNdjson(InputStream inputStream) {
+        return importRows(new NdjsonOrderRowReader(reader(inputStream), objectMapper));
+    }
+
+    private OrderImportReport importRows(OrderRowReader rowReader) {
+        long started = System.nanoTime();
+        Progress progress = new Progress();
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        try (rowReader) {
+            while (true) {
+                OrderImportRow row;
+                try {
+                    row = rowReader.next();
+                } catch (InvalidImportRowException e) {
+                    progress.total++;
+                    progress.fail(rowReader.rowNumber(), e.getMessage());
+                    continue;
+                }
+                if (row == null)
+                    break;
+                progress.total++;
+                try {
+                    batch.add(toPendingOrder(rowReader.rowNumber(), row));
+                } catch (RuntimeException e) {
+                    progress.fail(rowReader.rowNumber(), e.getMessage());
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    write(batch, progress);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty())
+                write(batch, progress);
+        } catch (IOException e) {
+            throw new OrderImportException("the import file could not be read.");
+        }
+        return new OrderImportReport(progress.total, progress.imported, progress.failed, List.copyOf(progress.errors),
+                Duration.ofNanos(System.nanoTime() - started));
+    }
+
+    private PendingOrder toPendingOrder(long rowNumber, OrderImportRow row) {
+        if (row.customerId() == null || row.underDutyId() == null || row.proposedPrice() == null
+                || row.dateAndTime() == null || row.address() == null)
+            throw new InvalidImportRowException("customerId, underDutyId, proposedPrice, dateAndTime and address are required.");
+        UnderDutyView underDuty = underDutyService.findViewById(row.underDutyId());
+        Orders orders = Orders.builder()
+                .proposedPrice(row.proposedPrice())
+                .description(row.description())
+                .dateAndTime(row.dateAndTime())
+                .address(row.address())
+                .latitude(row.latitude())
+                .longitude(row.longitude())
+                .orderStatus(OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                .build();
+        ordersService.validate(orders, underDuty.basePrice());
+        return new PendingOrder(rowNumber, row.customerId(), row.underDutyId(), orders);
+    }
+
+    private void write(List<PendingOrder> batch, Progress progress) {
+        Set<Long> customerIds = new HashSet<>();
+        batch.forEach(pending -> customerIds.add(pending.customerId()));
+        Set<Long> knownCustomerIds = new HashSet<>(customerRepository.findExistingIds(customerIds));
+        List<PendingOrder> accepted = new ArrayList<>(batch.size());
+        for (PendingOrder pending : batch) {
+            if (knownCustomerIds.contains(pending.customerId()))
+                accepted.add(pending);
+            else
+                progress.fail(pending.rowNumber(), "no customer found with this ID.");
+        }
+        if (accepted.isEmpty())
+            return;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (PendingOrder pending : accepted) {
+                    Orders orders = pending.orders();
+                    orders.setCustomer(entityManager.getReference(Customer.class, pending.customerId()));
+                    orders.setUnderDuty(entityManager.getReference(UnderDuty.class, pending.underDutyId()));
+                    entityManager.persist(orders);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            progress.imported += accepted.size();
+            accepted.forEach(pending -> eventPublisher.publishEvent(OrderCreatedEvent.of(pending.orders())));
+        } catch (DataAccessException | TransactionException e) {
+            for (PendingOrder pending : accepted)
+                progress.fail(pending.rowNumber(), "the batch containing this row was rolled back: "
+                        + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+        }
+    }
+
+    private static BufferedReader reader(InputStream inputStream) {
+        return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    private record PendingOrder(long rowNumber, Long customerId, Long underDutyId, Orders orders) {
+    }
+
+    private class Progress {
+
+        private final List<OrderImportError> errors = new ArrayList<>();
+
+        private long total;
+
+        private long imported;
+
+        private long failed;
+
+        private void fail(long rowNumber, String message) {
+            failed++;
+            if (errors.size() < maxErrors)
+                errors.add(new OrderImportError(rowNumber, message));
+        }
+    }
+}
@@ -1,18 +1,37 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.dto.OfferedOrderState;
+import ir.maktab.dto.OrderCursor;
+import ir.maktab.dto.OrderFeedPage;
+import ir.maktab.dto.OrderState;
+import ir.maktab.dto.OrderSummary;
 import ir.maktab.entity.Offers;
 import ir.maktab.entity.Orders;
 import ir.maktab.entity.enumeration.OrderStatus;
-import ir.maktab.exceptions.DateAndTimeException;
-import ir.maktab.exceptions.LessProposedPriceException;
-import ir.maktab.exceptions.OrderNotFoundException;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.event.OrderUpdatedEvent;
+import ir.maktab.exceptions.*;
+import ir.maktab.geo.GeoPoint;
 import ir.maktab.repository.OrdersRepository;
+import ir.maktab.search.SearchEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class OrdersService {
 
@@ -20,68 +39,200 @@ public class OrdersService {
 
     private final OffersService offersService;
 
-    public OrdersService(OrdersRepository ordersRepository, OffersService offersService) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final SearchEngine searchEngine;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int maxFeedPageSize;
+
+    private final int maxSearchResults;
+
+    public OrdersService(OrdersRepository ordersRepository, OffersService offersService,
+                         ApplicationEventPublisher eventPublisher, SearchEngine searchEngine,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.order-feed.max-page-size:100}") int maxFeedPageSize,
+                         @Value("${app.search.max-results:100}") int maxSearchResults) {
         this.ordersRepository = ordersRepository;
         this.offersService = offersService;
+        this.eventPublisher = eventPublisher;
+        this.searchEngine = searchEngine;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxFeedPageSize = maxFeedPageSize;
+        this.maxSearchResults = maxSearchResults;
     }
 
     public Orders save(Orders orders) {
-        if (orders.getProposedPrice() < orders.getUnderDuty().getBasePrice()) {
+        validate(orders);
+        Orders savedOrders = ordersRepository.save(orders);
+        eventPublisher.publishEvent(OrderCreatedEvent.of(savedOrders));
+        return savedOrders;
+    }
+
+    public void validate(Orders orders) {
+        validate(orders, orders.getUnderDuty().getBasePrice());
+    }
+
+    /**
+     * Validates an order whose under duty is not loaded, against the base price of that under duty.
+     */
+    public void validate(Orders orders, long basePrice) {
+        if (orders.getProposedPrice() < basePrice) {
             throw new LessProposedPriceException("your bid price is lower than the base price.");
         } else if (orders.getDateAndTime().isBefore(LocalDateTime.now())) {
             throw new DateAndTimeException("the entered date is less than today's date.");
-        } else {
-            return ordersRepository.save(orders);
         }
+        GeoPoint.of(orders.getLatitude(), orders.getLongitude());
     }
 
     public List<Orders> findAllByUnderDutyIdAndStatus(Long underDutyId) {
         return ordersRepository.findAllByUnderDutyIdAndOrderStatus(underDutyId);
     }
 
+    public List<OrderSummary> findOpenOrderSummaries(Long underDutyId) {
+        return ordersRepository.findOpenOrderSummariesByUnderDutyId(underDutyId);
+    }
+
+    public OrderFeedPage findOpenOrderFeed(Long underDutyId, String cursor, int pageSize) {
+        int size = Math.max(1, Math.min(pageSize, maxFeedPageSize));
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<OrderSummary> orders;
+        if (cursor == null) {
+            orders = ordersRepository.findOpenOrderFeed(underDutyId, page);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            orders = ordersRepository.findOpenOrderFeedAfter(underDutyId, after.dateAndTime(), after.id(), page);
+        }
+        if (orders.size() <= size)
+            return new OrderFeedPage(orders, null);
+        List<OrderSummary> content = orders.subList(0, size);
+        return new OrderFeedPage(content, OrderCursor.of(content.get(size - 1)).encode());
+    }
+
+    /**
+     * Open orders whose description or address contain the words of {@code query}, the last word
+     * matched as a prefix, newest first.
+     *
+     * @param underDutyId only orders of this under duty, or {@code null} for all
+     */
+    public List<OrderSummary> searchOpenOrders(Long underDutyId, String query, int limit) {
+        List<Long> ids = searchEngine.searchOpenOrders(underDutyId, query, Math.min(limit, maxSearchResults));
+        if (ids.isEmpty())
+            return List.of();
+        Map<Long, OrderSummary> summaries = new HashMap<>();
+        ordersRepository.findOpenOrderSummariesByIds(ids).forEach(summary -> summaries.put(summary.getId(), summary));
+        return ids.stream().map(summaries::get).filter(Objects::nonNull).toList();
+    }
+
     public Orders findById(long id) {
-        return ordersRepository.findById(id).orElseThrow(() -> new OrderNotFoundException("no order found with this ID."));
+        return ordersRepository.findWithOffersById(id).orElseThrow(() -> new OrderNotFoundException("no order found with this ID."));
     }
 
+    /**
+     * Links the offer to the order with one insert, so a concurrent change to the order neither loses the
+     * offer nor fails on it. The first offer moves the order on to specialist selection. The offer is
+     * ranked once the link is committed.
+     */
     public void addOffers(Orders orders, Offers offers) {
-        orders.addOffers(offers);
+        Long orderId = orders.getId();
+        Boolean linked = transactionTemplate.execute(status -> {
+            if (ordersRepository.linkOffer(orderId, offers.getId()) == 0)
+                return false;
+            if (ordersRepository.updateStatusIn(List.of(orderId), OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS,
+                    OrderStatus.WAITING_FOR_SPECIALIST_SELECTION) == 1)
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, orders.getUnderDuty().getId(),
+                        OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS, OrderStatus.WAITING_FOR_SPECIALIST_SELECTION));
+            return true;
+        });
+        if (Boolean.TRUE.equals(linked)) {
+            offersService.addToRanking(orderId, offers);
+            return;
+        }
+        OrderState state = ordersRepository.findStateById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("no order found with this ID."));
+        if (state.getOrderStatus() == null || !state.getOrderStatus().isOpenForOffers())
+            throw new InvalidOrderStatusTransitionException("offers can only be added while the order is open for offers.");
     }
 
     public Orders findOrderInOrdersList(Long underDutyId, Long orderId) {
         return ordersRepository.findByUnderDutyIdAndOrderStatus(underDutyId, orderId);
     }
 
+    /**
+     * Writes the details of the order, as a conditional update on the version it was read at. The status,
+     * the expert and the offers only change through their own methods, so a status change is rejected.
+     */
     public Orders update(Orders orders) {
-        return ordersRepository.save(orders);
+        if (orders.getOrderStatus() != orders.getLoadedStatus())
+            throw new InvalidOrderStatusTransitionException("the status of an order can only be changed through its transitions.");
+        GeoPoint.of(orders.getLatitude(), orders.getLongitude());
+        if (ordersRepository.updateDetails(orders.getId(), orders.getVersion(), orders.getProposedPrice(),
+                orders.getDescription(), orders.getDateAndTime(), orders.getAddress(), orders.getLatitude(),
+                orders.getLongitude()) == 0)
+            throw new OrderConflictException("the order was changed by someone else, please try again.");
+        Orders updatedOrders = findById(orders.getId());
+        eventPublisher.publishEvent(OrderUpdatedEvent.of(updatedOrders));
+        return updatedOrders;
     }
 
+    /**
+     * Assigns the expert of the offer and moves the order on to wait for them, as one conditional update.
+     */
     public Orders selectOfferForOrder(Long orderId, Long offerId) {
-        Orders order = findById(orderId);
-        Offers offers = offersService.getOffer(orderId, offerId);
-        assert offers != null;
-        order.setExpert(offers.getExpert());
-        return update(order);
+        OfferedOrderState state = findState(orderId, offerId);
+        OrderStatus from = state.getOrderStatus();
+        OrderStatus to = OrderStatus.WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE;
+        if (from == null || !from.canTransitionTo(to))
+            throw new InvalidOrderStatusTransitionException("an offer can only be selected while the order is waiting for specialist selection.");
+        if (ordersRepository.updateExpert(orderId, state.getVersion(), from, to, state.getExpertId(), offerId) == 0)
+            throw new OrderConflictException("the order was changed by someone else, please try again.");
+        offersService.evictRanking(orderId);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, state.getUnderDutyId(), from, to));
+        return findById(orderId);
     }
 
     public void updateOrderStatusToStarted(Long orderId, Long offerId) {
-        Orders order = findById(orderId);
-        Offers offer = offersService.getOffer(orderId, offerId);
-        if (LocalDateTime.now().isBefore(offer.getSuggestedTime())) {
+        OfferedOrderState state = findState(orderId, offerId);
+        if (LocalDateTime.now().isBefore(state.getSuggestedTime())) {
             throw new DateAndTimeException("You cannot change the status of a task to 'Started' before it starts.");
         } else {
-            order.setOrderStatus(OrderStatus.STARTED);
-            update(order);
+            changeOrderStatus(orderId, state, OrderStatus.STARTED);
         }
     }
 
     public void updateOrderStatusToDone(Long orderId, Long offerId) {
-        Orders order = findById(orderId);
-        Offers offer = offersService.getOffer(orderId, offerId);
-        if (LocalDateTime.now().isBefore(offer.getSuggestedTime())) {
+        OfferedOrderState state = findState(orderId, offerId);
+        if (LocalDateTime.now().isBefore(state.getSuggestedTime())) {
             throw new DateAndTimeException("You cannot change the status of a task to 'Done' before it starts.");
         } else {
-            order.setOrderStatus(OrderStatus.DONE);
-            update(order);
+            changeOrderStatus(orderId, state, OrderStatus.DONE);
         }
     }
+
+    public void changeOrderStatus(Long orderId, OrderStatus status) {
+        OrderState state = ordersRepository.findStateById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("no order found with this ID."));
+        changeOrderStatus(orderId, state, status);
+    }
+
+    /**
+     * Moves the order from the status it had when {@code state} was read, as one conditional update.
+     * A concurrent change in between makes the update match no row and is reported as a conflict.
+     */
+    private void changeOrderStatus(Long orderId, OrderState state, OrderStatus status) {
+        OrderStatus from = state.getOrderStatus();
+        if (from == null || !from.canTransitionTo(status))
+            throw new InvalidOrderStatusTransitionException("an order cannot go from " + from + " to " + status + ".");
+        if (ordersRepository.updateStatus(orderId, state.getVersion(), from, status) == 0)
+            throw new OrderConflictException("the order was changed by someone else, please try again.");
+        if (!status.isOpenForOffers())
+            offersService.evictRanking(orderId);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderId, state.getUnderDutyId(), from, status));
+    }
+
+    private OfferedOrderState findState(Long orderId, Long offerId) {
+        return ordersRepository.findStateByIdAndOfferId(orderId, offerId)
+                .orElseThrow(() -> new OffersNotFoundException("no offer found for this order."));
+    }
 }
@@ -0,0 +1,265 @@
+package ir.maktab.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ir.maktab.dto.SettlementCandidate;
+import ir.maktab.dto.SettlementReport;
+import ir.maktab.dto.WalletAccount;
+import ir.maktab.dto.WalletTransfer;
+import ir.maktab.entity.SettlementCheckpoint;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.exceptions.DuplicatePostingException;
+import ir.maktab.exceptions.OrderConflictException;
+import ir.maktab.repository.OrdersRepository;
+import ir.maktab.repository.SettlementCheckpointRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Pays {@code DONE} orders: the customer is debited and the expert credited with the price of the
+ * offer the customer accepted, and the order moves to {@code PAID}. Orders are read in id-ordered chunks and each
+ * chunk is posted, flipped and checkpointed in one transaction. A run splits the id range of the
+ * {@code DONE} orders into {@code app.settlement.partitions} ranges settled in parallel; a run that
+ * stopped part way is resumed from its checkpoints before a new one is planned. An order the customer's
+ * balance cannot pay for is deferred: no run reads it again until {@code app.settlement.retry-backoff}
+ * has passed, a backoff that doubles with every failed attempt up to {@code app.settlement.max-retry-backoff}.
+ * Every run adds its totals to the {@value #METRIC} meters, which also gauge the {@code DONE} backlog.
+ */
+@Service
+public class SettlementService {
+
+    public static final String METRIC = "app.settlement";
+
+    private final OrdersRepository ordersRepository;
+
+    private final SettlementCheckpointRepository checkpointRepository;
+
+    private final WalletService walletService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int partitions;
+
+    private final int chunkSize;
+
+    private final Duration retryBackoff;
+
+    private final Duration maxRetryBackoff;
+
+    private final Counter settledOrders;
+
+    private final Counter settledAmount;
+
+    private final Counter skippedOrders;
+
+    private final Counter failedChunks;
+
+    private final Timer runs;
+
+    private final AtomicLong remainingOrders = new AtomicLong();
+
+    private volatile SettlementReport lastReport;
+
+    public SettlementService(OrdersRepository ordersRepository, SettlementCheckpointRepository checkpointRepository,
+                             WalletService walletService, ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                             @Value("${app.settlement.partitions:4}") int partitions,
+                             @Value("${app.settlement.chunk-size:500}") int chunkSize,
+                             @Value("${app.settlement.retry-backoff:10m}") Duration retryBackoff,
+                             @Value("${app.settlement.max-retry-backoff:1d}") Duration maxRetryBackoff) {
+        this.ordersRepository = ordersRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.walletService = walletService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+        this.chunkSize = chunkSize;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.settledOrders = Counter.builder(METRIC + ".orders").tag("outcome", "settled").register(meterRegistry);
+        this.skippedOrders = Counter.builder(METRIC + ".orders").tag("outcome", "skipped").register(meterRegistry);
+        this.settledAmount = Counter.builder(METRIC + ".amount").register(meterRegistry);
+        this.failedChunks = Counter.builder(METRIC + ".failed.chunks").register(meterRegistry);
+        this.runs = Timer.builder(METRIC + ".runs").register(meterRegistry);
+        Gauge.builder(METRIC + ".remaining.orders", remainingOrders, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.settlement.interval-ms:60000}",
+            initialDelayString = "${app.settlement.interval-ms:60000}")
+    public synchronized SettlementReport settle() {
+        long started = System.nanoTime();
+        List<SettlementCheckpoint> checkpoints = checkpointRepository.findAllByCompletedFalseOrderByPartitionNumber();
+        if (checkpoints.isEmpty())
+            checkpoints = plan();
+        Totals totals = new Totals();
+        if (!checkpoints.isEmpty()) {
+            ExecutorService executor = Executors.newFixedThreadPool(checkpoints.size());
+            try {
+                List<Future<?>> futures = new ArrayList<>(checkpoints.size());
+                for (SettlementCheckpoint checkpoint : checkpoints)
+                    futures.add(executor.submit(() -> settlePartition(checkpoint, totals)));
+                for (Future<?> future : futures)
+                    future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause)
+                    throw cause;
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        lastReport = new SettlementReport(checkpoints.size(), totals.settledOrders.sum(), totals.settledAmount.sum(),
+                totals.skippedOrders.sum(), totals.failedChunks.sum(), ordersRepository.countByOrderStatus(OrderStatus.DONE),
+                Duration.ofNanos(System.nanoTime() - started));
+        settledOrders.increment(lastReport.settledOrders());
+        settledAmount.increment(lastReport.settledAmount());
+        skippedOrders.increment(lastReport.skippedOrders());
+        failedChunks.increment(lastReport.failedChunks());
+        remainingOrders.set(lastReport.remainingOrders());
+        runs.record(lastReport.elapsed());
+        return lastReport;
+    }
+
+    public SettlementReport lastReport() {
+        return lastReport;
+    }
+
+    /**
+     * Replaces the checkpoints of the last finished run with equal id ranges over the {@code DONE}
+     * orders that are due now.
+     */
+    private List<SettlementCheckpoint> plan() {
+        return transactionTemplate.execute(status -> {
+            checkpointRepository.deleteAllInBatch();
+            LocalDateTime now = LocalDateTime.now();
+            Long minId = ordersRepository.findMinIdDueForSettlement(now);
+            Long maxId = ordersRepository.findMaxIdDueForSettlement(now);
+            if (minId == null)
+                return List.of();
+            long lowerBound = minId - 1;
+            long step = Math.max(1, (maxId - lowerBound + partitions - 1) / partitions);
+            List<SettlementCheckpoint> checkpoints = new ArrayList<>(partitions);
+            for (int i = 0; lowerBound < maxId; i++) {
+                long upperBound = Math.min(lowerBound + step, maxId);
+                checkpoints.add(SettlementCheckpoint.builder()
+                        .partitionNumber(i)
+                        .lowerBound(lowerBound)
+                        .upperBound(upperBound)
+                        .lastOrderId(lowerBound)
+                        .settledOrders(0L)
+                        .completed(false)
+                        .build());
+                lowerBound = upperBound;
+            }
+            return checkpointRepository.saveAll(checkpoints);
+        });
+    }
+
+    private void settlePartition(SettlementCheckpoint checkpoint, Totals totals) {
+        long lastOrderId = checkpoint.getLastOrderId();
+        LocalDateTime now = LocalDateTime.now();
+        while (true) {
+            List<SettlementCandidate> rows = ordersRepository.findSettlementCandidates(lastOrderId,
+                    checkpoint.getUpperBound(), now, PageRequest.of(0, chunkSize));
+            if (rows.isEmpty()) {
+                checkpointRepository.complete(checkpoint.getId());
+                return;
+            }
+            long chunkLastOrderId = rows.get(rows.size() - 1).getOrderId();
+            try {
+                settleChunk(checkpoint.getId(), rows, chunkLastOrderId, totals);
+            } catch (OrderConflictException | DuplicatePostingException | DataAccessException | TransactionException e) {
+                // the chunk rolled back as a whole; its orders stay DONE and are picked up by the next run
+                totals.failedChunks.increment();
+            }
+            lastOrderId = chunkLastOrderId;
+        }
+    }
+
+    private void settleChunk(Long checkpointId, List<SettlementCandidate> rows, long chunkLastOrderId, Totals totals) {
+        Map<String, SettlementCandidate> byReference = new LinkedHashMap<>();
+        for (SettlementCandidate row : rows)
+            byReference.put("order:" + row.getOrderId(), row);
+        List<WalletTransfer> transfers = new ArrayList<>(byReference.size());
+        byReference.forEach((reference, row) -> transfers.add(new WalletTransfer(WalletAccount.customer(row.getCustomerId()),
+                WalletAccount.expert(row.getExpertId()), row.getAmount(), reference)));
+
+        List<WalletTransfer> posted = walletService.transferAll(transfers, paid -> {
+            List<Long> orderIds = paid.stream().map(transfer -> byReference.get(transfer.reference()).getOrderId()).toList();
+            if (ordersRepository.updateStatusIn(orderIds, OrderStatus.DONE, OrderStatus.PAID) != orderIds.size())
+                throw new OrderConflictException("an order of this chunk was changed while it was being settled.");
+            checkpointRepository.advance(checkpointId, chunkLastOrderId, orderIds.size());
+            for (WalletTransfer transfer : paid) {
+                SettlementCandidate row = byReference.get(transfer.reference());
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(row.getOrderId(), row.getUnderDutyId(),
+                        OrderStatus.DONE, OrderStatus.PAID));
+            }
+        });
+        if (posted.isEmpty())
+            checkpointRepository.advance(checkpointId, chunkLastOrderId, 0);
+        if (posted.size() < transfers.size())
+            defer(byReference, posted);
+
+        totals.settledOrders.add(posted.size());
+        totals.skippedOrders.add(transfers.size() - posted.size());
+        for (WalletTransfer transfer : posted)
+            totals.settledAmount.add(transfer.amount());
+    }
+
+    /**
+     * Puts off the orders of a chunk that were not paid, each by the backoff of its next attempt. Orders
+     * with the same number of attempts are deferred by one update.
+     */
+    private void defer(Map<String, SettlementCandidate> byReference, List<WalletTransfer> posted) {
+        Map<String, SettlementCandidate> skipped = new LinkedHashMap<>(byReference);
+        posted.forEach(transfer -> skipped.remove(transfer.reference()));
+        Map<Integer, List<Long>> byAttempts = new TreeMap<>();
+        for (SettlementCandidate row : skipped.values()) {
+            int attempts = row.getSettlementAttempts() == null ? 1 : row.getSettlementAttempts() + 1;
+            byAttempts.computeIfAbsent(attempts, key -> new ArrayList<>()).add(row.getOrderId());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        byAttempts.forEach((attempts, orderIds) ->
+                ordersRepository.deferSettlement(orderIds, attempts, now.plus(backoff(attempts))));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration backoff = retryBackoff;
+        for (int i = 1; i < attempts && backoff.compareTo(maxRetryBackoff) < 0; i++)
+            backoff = backoff.multipliedBy(2);
+        return backoff.compareTo(maxRetryBackoff) < 0 ? backoff : maxRetryBackoff;
+    }
+
+    private static final class Totals {
+
+        private final LongAdder settledOrders = new LongAdder();
+
+        private final LongAdder settledAmount = new LongAdder();
+
+        private final LongAdder skippedOrders = new LongAdder();
+
+        private final LongAdder failedChunks = new LongAdder();
+    }
+}
@@ -1,39 +1,102 @@
 package ir.maktab.service;
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.config.CacheConfig;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.dto.UnderDutyView;
 import ir.maktab.entity.UnderDuty;
+import ir.maktab.exceptions.ConstraintViolations;
 import ir.maktab.exceptions.UnderDutyExistException;
 import ir.maktab.exceptions.UnderDutyNotFoundException;
 import ir.maktab.repository.UnderDutyRepository;
+import ir.maktab.search.SearchEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class UnderDutyService {
 
     private final UnderDutyRepository underDutyRepository;
 
-    public UnderDutyService(UnderDutyRepository underDutyRepository) {
+    private final SearchEngine searchEngine;
+
+    private final int maxSearchResults;
+
+    public UnderDutyService(UnderDutyRepository underDutyRepository, SearchEngine searchEngine,
+                            @Value("${app.search.max-results:100}") int maxSearchResults) {
         this.underDutyRepository = underDutyRepository;
+        this.searchEngine = searchEngine;
+        this.maxSearchResults = maxSearchResults;
     }
 
+    @CacheEvict(cacheNames = CacheConfig.UNDER_DUTIES_BY_DUTY, key = "#underDuty.duty.id")
     public UnderDuty save(UnderDuty underDuty) {
-        UnderDuty foundedUnderDuty = underDutyRepository.findByNameAndDuty_Id(underDuty.getName(), underDuty.getDuty().getId());
-        if (foundedUnderDuty == null) {
-            return underDutyRepository.save(underDuty);
-        } else throw new UnderDutyExistException("an under duty already exists with this name in this duty.");
+        try {
+            UnderDuty savedUnderDuty = underDutyRepository.saveAndFlush(underDuty);
+            searchEngine.indexUnderDuty(savedUnderDuty);
+            return savedUnderDuty;
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.UNDER_DUTY_NAME_DUTY))
+                throw new UnderDutyExistException("an under duty already exists with this name in this duty.");
+            throw e;
+        }
     }
 
-    public List<UnderDuty> findAllByDutyId(Long dutyId) {
-        return underDutyRepository.findAllByDuty_Id(dutyId);
+    @Cacheable(CacheConfig.UNDER_DUTIES_BY_DUTY)
+    public List<UnderDutyView> findAllByDutyId(Long dutyId) {
+        return underDutyRepository.findAllByDuty_Id(dutyId).stream().map(UnderDutyView::of).toList();
     }
 
+    /**
+     * The entity, for a caller that writes it or links it to another; {@link #findViewById} is the cached read.
+     */
     public UnderDuty findById(long id) {
         return underDutyRepository.findById(id).orElseThrow(() -> new UnderDutyNotFoundException("no under duty found with this ID."));
     }
 
+    @Cacheable(CacheConfig.UNDER_DUTY_BY_ID)
+    public UnderDutyView findViewById(long id) {
+        return UnderDutyView.of(findById(id));
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.UNDER_DUTY_BY_ID, key = "#underDuty.id"),
+            @CacheEvict(cacheNames = CacheConfig.UNDER_DUTIES_BY_DUTY, allEntries = true)})
     public UnderDuty update(UnderDuty underDuty) {
-        return underDutyRepository.save(underDuty);
+        UnderDuty updatedUnderDuty = underDutyRepository.save(underDuty);
+        searchEngine.indexUnderDuty(updatedUnderDuty);
+        return updatedUnderDuty;
+    }
+
+    /**
+     * Under duties whose name or explanation contain the words of {@code query}, the last word matched
+     * as a prefix.
+     */
+    public List<UnderDuty> search(String query, int limit) {
+        List<Long> ids = searchEngine.searchUnderDuties(query, Math.min(limit, maxSearchResults));
+        if (ids.isEmpty())
+            return List.of();
+        Map<Long, UnderDuty> underDuties = new HashMap<>();
+        underDutyRepository.findAllById(ids).forEach(underDuty -> underDuties.put(underDuty.getId(), underDuty));
+        return ids.stream().map(underDuties::get).filter(Objects::nonNull).toList();
+    }
+
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.UNDER_DUTY_BY_ID, key = "#id"),
+            @CacheEvict(cacheNames = CacheConfig.UNDER_DUTIES_BY_DUTY, allEntries = true)})
+    public void updateBasePrice(Long id, Long basePrice) {
+        if (underDutyRepository.updateBasePrice(id, basePrice) == 0)
+            throw new UnderDutyNotFoundException("no under duty found with this ID.");
     }
 }
@@ -1,44 +1,62 @@
 package ir.maktab.service;
 
 
+import io.micrometer.core.annotation.Timed;
+import ir.maktab.config.MetricsConfig;
 import ir.maktab.entity.User;
 import ir.maktab.exceptions.*;
 import ir.maktab.repository.UserRepository;
-import ir.maktab.security.SecurityUtils;
+import ir.maktab.security.SessionStore;
+import ir.maktab.security.UserPrincipal;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
 
+@Timed(value = MetricsConfig.SERVICE_METRIC, histogram = true)
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final SessionStore sessionStore;
+
+    public UserService(UserRepository userRepository, SessionStore sessionStore) {
         this.userRepository = userRepository;
+        this.sessionStore = sessionStore;
     }
 
     public User register(User user) {
-        boolean exist = userRepository.existsByEmail(user.getEmail());
-        if (!exist) {
-            return userRepository.save(user);
-        } else throw new UserExistException("user with given email :-- " + user.getEmail() + " -- has already registered, please login.");
+        try {
+            return userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.USERS_EMAIL))
+                throw new UserExistException("user with given email :-- " + user.getEmail() + " -- has already registered, please login.");
+            throw e;
+        }
     }
 
-    public boolean login(String email, String password) {
+    public String login(String email, String password) {
         User user = userRepository.findByEmail(email);
         if (user == null)
             throw new UserNotFoundException("user with given email :-- " + email + " -- not found.");
 
         if (user.getPassword().equals(password)) {
-            SecurityUtils.setUser(user);
-            return true;
+            return sessionStore.create(UserPrincipal.of(user));
         } else {
             throw new InvalidPasswordException("password is wrong.");
         }
     }
 
+    public UserPrincipal currentUser(String token) {
+        return sessionStore.require(token);
+    }
+
+    public void logout(String token) {
+        sessionStore.invalidate(token);
+    }
+
     public List<User> findAll() {
         return userRepository.findAll();
     }
@@ -51,13 +69,11 @@ public class UserService {
         return userRepository.save(user);
     }
 
-    public User changePassword(Long id, String email, String newPassword, String repeatPassword) {
-        User user = userRepository.findByEmailAndId(email, id);
-        if (user != null) {
-            if (newPassword.equals(repeatPassword)) {
-                user.setPassword(newPassword);
-                return userRepository.save(user);
-            } else throw new PasswordNotMatchException("the password and its repetition are not the same.");
-        } else throw new WrongUserEmailException("the email entered does not belong to you.");
+    public void changePassword(Long id, String email, String newPassword, String repeatPassword) {
+        if (!newPassword.equals(repeatPassword))
+            throw new PasswordNotMatchException("the password and its repetition are not the same.");
+        if (userRepository.updatePassword(id, email, newPassword) == 0)
+            throw new WrongUserEmailException("the email entered does not belong to you.");
+        sessionStore.invalidateUser(id);
     }
 }
@@ -0,0 +1,332 @@
+package ir.maktab.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ir.maktab.dto.LedgerTail;
+import ir.maktab.dto.OpeningBalance;
+import ir.maktab.dto.WalletAccount;
+import ir.maktab.dto.WalletTransfer;
+import ir.maktab.entity.BalanceSnapshot;
+import ir.maktab.entity.LedgerEntry;
+import ir.maktab.entity.enumeration.AccountType;
+import ir.maktab.exceptions.ConstraintViolations;
+import ir.maktab.exceptions.DuplicatePostingException;
+import ir.maktab.exceptions.InsufficientBalanceException;
+import ir.maktab.repository.BalanceSnapshotRepository;
+import ir.maktab.repository.CustomerRepository;
+import ir.maktab.repository.ExpertRepository;
+import ir.maktab.repository.LedgerEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+
+/**
+ * Balances kept as an append-only, double-entry ledger. A transfer inserts a debit and a credit entry
+ * and never updates a row. Postings to the same account are serialized by one of
+ * {@code app.wallet.lock-stripes} locks, picked by the account, and numbered per account; the unique (account, sequence number) constraint rejects a posting that raced
+ * on another node, after which the accounts are reloaded and the posting retried once. Balances are
+ * served from memory and loaded on first use from the latest {@link BalanceSnapshot} plus the entries
+ * after it; at most {@code app.wallet.cached-accounts} balances are kept, the least recently used
+ * dropped and loaded again when next needed. A snapshot is written every {@code app.wallet.snapshot-interval} entries. The system side
+ * of deposits and withdrawals is spread over {@code app.wallet.system-shards} system accounts, picked by
+ * the other account, so they do not all queue on one stripe and one sequence. An account starts
+ * from the {@code validity} its customer or expert was created with, posted once as a deposit whose
+ * reference is {@link #openingReference(WalletAccount)}; from then on only the ledger holds the balance.
+ */
+@Service
+public class WalletService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    private final BalanceSnapshotRepository balanceSnapshotRepository;
+
+    private final CustomerRepository customerRepository;
+
+    private final ExpertRepository expertRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Only read and written with the stripe of the account held, so a balance dropped from it while a
+     * posting is under way is loaded again after that posting committed.
+     */
+    private final Cache<WalletAccount, AccountState> accounts;
+
+    private final ReentrantLock[] stripes;
+
+    private final int snapshotInterval;
+
+    private final int openingBatchSize;
+
+    private final int systemShards;
+
+    public WalletService(LedgerEntryRepository ledgerEntryRepository,
+                         BalanceSnapshotRepository balanceSnapshotRepository,
+                         CustomerRepository customerRepository, ExpertRepository expertRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.wallet.snapshot-interval:100}") int snapshotInterval,
+                         @Value("${app.wallet.opening-batch-size:500}") int openingBatchSize,
+                         @Value("${app.wallet.system-shards:16}") int systemShards,
+                         @Value("${app.wallet.lock-stripes:1024}") int lockStripes,
+                         @Value("${app.wallet.cached-accounts:100000}") long cachedAccounts) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.balanceSnapshotRepository = balanceSnapshotRepository;
+        this.customerRepository = customerRepository;
+        this.expertRepository = expertRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotInterval = snapshotInterval;
+        this.openingBatchSize = openingBatchSize;
+        this.systemShards = Math.max(1, systemShards);
+        this.stripes = new ReentrantLock[Math.max(1, lockStripes)];
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new ReentrantLock();
+        this.accounts = Caffeine.newBuilder().maximumSize(cachedAccounts).build();
+    }
+
+    public static String openingReference(WalletAccount account) {
+        return "opening:" + account.type().name().toLowerCase() + ":" + account.id();
+    }
+
+    /**
+     * Posts the balance a new account was created with. Opening an account that is already open does nothing.
+     */
+    public void open(WalletAccount account, Long openingBalance) {
+        if (openingBalance == null || openingBalance <= 0)
+            return;
+        try {
+            deposit(account, openingBalance, openingReference(account));
+        } catch (DuplicatePostingException e) {
+            // opened before
+        }
+    }
+
+    /**
+     * Opens, in id-ordered batches, every customer and expert account whose opening balance was never
+     * posted, such as those created before the ledger existed.
+     *
+     * @return the number of accounts opened
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int postOpeningBalances() {
+        return postOpeningBalances(customerRepository::findOpeningBalancesAfter, WalletAccount::customer)
+                + postOpeningBalances(expertRepository::findOpeningBalancesAfter, WalletAccount::expert);
+    }
+
+    private int postOpeningBalances(BiFunction<Long, PageRequest, List<OpeningBalance>> findAfter,
+                                    Function<Long, WalletAccount> account) {
+        int opened = 0;
+        long lastId = 0;
+        while (true) {
+            List<OpeningBalance> balances = findAfter.apply(lastId, PageRequest.of(0, openingBatchSize));
+            if (balances.isEmpty())
+                return opened;
+            Map<String, WalletTransfer> transfers = new LinkedHashMap<>();
+            for (OpeningBalance balance : balances) {
+                WalletAccount target = account.apply(balance.getId());
+                transfers.put(openingReference(target),
+                        new WalletTransfer(systemShard(target), target, balance.getValidity(), openingReference(target)));
+            }
+            ledgerEntryRepository.findExistingReferences(transfers.keySet()).forEach(transfers::remove);
+            try {
+                if (!transfers.isEmpty())
+                    opened += transferAll(List.copyOf(transfers.values()), posted -> {
+                    }).size();
+            } catch (DuplicatePostingException e) {
+                // an account of the batch was opened meanwhile, so open them one by one
+                transfers.values().forEach(transfer -> open(transfer.to(), transfer.amount()));
+            }
+            lastId = balances.get(balances.size() - 1).getId();
+        }
+    }
+
+    public long balance(WalletAccount account) {
+        AccountState state = accounts.getIfPresent(account);
+        if (state != null && state.loaded)
+            return state.balance;
+        ReentrantLock lock = stripes[stripe(account)];
+        lock.lock();
+        try {
+            state = accounts.get(account, key -> new AccountState());
+            load(account, state);
+            return state.balance;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the balance of the system account, summed over its shards
+     */
+    public long systemBalance() {
+        long balance = 0;
+        for (int shard = 0; shard < systemShards; shard++)
+            balance += balance(WalletAccount.system(shard));
+        return balance;
+    }
+
+    public void deposit(WalletAccount account, long amount, String reference) {
+        transfer(systemShard(account), account, amount, reference);
+    }
+
+    public void withdraw(WalletAccount account, long amount, String reference) {
+        transfer(account, systemShard(account), amount, reference);
+    }
+
+    public void settle(Long orderId, Long customerId, Long expertId, long amount) {
+        transfer(WalletAccount.customer(customerId), WalletAccount.expert(expertId), amount, "order:" + orderId);
+    }
+
+    public void transfer(WalletAccount from, WalletAccount to, long amount, String reference) {
+        if (transferAll(List.of(new WalletTransfer(from, to, amount, reference)), posted -> {
+        }).isEmpty())
+            throw new InsufficientBalanceException("the balance of this account is not enough.");
+    }
+
+    /**
+     * Posts the transfers in one transaction, skipping those that would overdraw a non-system account.
+     * {@code inTransaction} receives the transfers that were posted and runs in the same transaction,
+     * so the caller can record what the postings were for atomically with them.
+     *
+     * @return the transfers that were posted, in order
+     */
+    public List<WalletTransfer> transferAll(List<WalletTransfer> transfers, Consumer<List<WalletTransfer>> inTransaction) {
+        Map<WalletAccount, AccountState> locked = new LinkedHashMap<>();
+        SortedSet<Integer> lockedStripes = new TreeSet<>();
+        for (WalletTransfer transfer : transfers) {
+            if (transfer.amount() <= 0)
+                throw new IllegalArgumentException("the amount must be positive.");
+            locked.put(transfer.from(), null);
+            locked.put(transfer.to(), null);
+        }
+        locked.keySet().forEach(account -> lockedStripes.add(stripe(account)));
+        List<ReentrantLock> held = new ArrayList<>(lockedStripes.size());
+        try {
+            for (int stripe : lockedStripes) {
+                stripes[stripe].lock();
+                held.add(stripes[stripe]);
+            }
+            locked.replaceAll((account, state) -> accounts.get(account, key -> new AccountState()));
+            try {
+                return post(transfers, locked, inTransaction);
+            } catch (DataIntegrityViolationException e) {
+                if (!ConstraintViolations.isViolationOf(e, ConstraintViolations.LEDGER_ENTRY_SEQUENCE))
+                    throw e;
+                locked.values().forEach(state -> state.loaded = false);
+                return post(transfers, locked, inTransaction);
+            }
+        } catch (DataIntegrityViolationException e) {
+            if (ConstraintViolations.isViolationOf(e, ConstraintViolations.LEDGER_ENTRY_REFERENCE))
+                throw new DuplicatePostingException("a posting with one of these references already exists: "
+                        + transfers.stream().map(WalletTransfer::reference).toList());
+            throw e;
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--)
+                held.get(i).unlock();
+        }
+    }
+
+    /**
+     * Must be called with the stripe of every account held. The new balances are published only after the
+     * transaction commits.
+     */
+    private List<WalletTransfer> post(List<WalletTransfer> transfers, Map<WalletAccount, AccountState> states,
+                                      Consumer<List<WalletTransfer>> inTransaction) {
+        Map<WalletAccount, long[]> pending = new HashMap<>();
+        for (Map.Entry<WalletAccount, AccountState> state : states.entrySet()) {
+            load(state.getKey(), state.getValue());
+            pending.put(state.getKey(), new long[]{state.getValue().balance, state.getValue().lastSequence});
+        }
+        List<WalletTransfer> posted = new ArrayList<>(transfers.size());
+        List<LedgerEntry> entries = new ArrayList<>(transfers.size() * 2);
+        List<BalanceSnapshot> snapshots = new ArrayList<>();
+        for (WalletTransfer transfer : transfers) {
+            long[] source = pending.get(transfer.from());
+            if (transfer.from().type() != AccountType.SYSTEM && source[0] < transfer.amount())
+                continue;
+            posted.add(transfer);
+            append(transfer.from(), source, -transfer.amount(), transfer.reference(), entries, snapshots);
+            append(transfer.to(), pending.get(transfer.to()), transfer.amount(), transfer.reference(), entries, snapshots);
+        }
+        if (posted.isEmpty())
+            return posted;
+        transactionTemplate.executeWithoutResult(status -> {
+            ledgerEntryRepository.saveAll(entries);
+            if (!snapshots.isEmpty())
+                balanceSnapshotRepository.saveAll(snapshots);
+            inTransaction.accept(posted);
+            ledgerEntryRepository.flush();
+        });
+        pending.forEach((account, values) -> {
+            AccountState state = states.get(account);
+            state.lastSequence = values[1];
+            state.balance = values[0];
+        });
+        return posted;
+    }
+
+    private void append(WalletAccount account, long[] values, long amount, String reference,
+                        List<LedgerEntry> entries, List<BalanceSnapshot> snapshots) {
+        values[0] += amount;
+        values[1]++;
+        entries.add(LedgerEntry.builder()
+                .accountType(account.type())
+                .accountId(account.id())
+                .sequenceNumber(values[1])
+                .amount(amount)
+                .reference(reference)
+                .build());
+        if (values[1] % snapshotInterval == 0)
+            snapshots.add(BalanceSnapshot.builder()
+                    .accountType(account.type())
+                    .accountId(account.id())
+                    .sequenceNumber(values[1])
+                    .balance(values[0])
+                    .build());
+    }
+
+    private WalletAccount systemShard(WalletAccount account) {
+        return WalletAccount.system(Math.floorMod(account.id() * 31 + account.type().ordinal(), systemShards));
+    }
+
+    private int stripe(WalletAccount account) {
+        return Math.floorMod(account.hashCode(), stripes.length);
+    }
+
+    /**
+     * Must be called with the stripe of the account held.
+     */
+    private void load(WalletAccount account, AccountState state) {
+        if (state.loaded)
+            return;
+        BalanceSnapshot snapshot = balanceSnapshotRepository
+                .findTopByAccountTypeAndAccountIdOrderBySequenceNumberDesc(account.type(), account.id())
+                .orElse(null);
+        long snapshotSequence = snapshot == null ? 0 : snapshot.getSequenceNumber();
+        long snapshotBalance = snapshot == null ? 0 : snapshot.getBalance();
+        LedgerTail tail = ledgerEntryRepository.findTail(account.type(), account.id(), snapshotSequence);
+        state.lastSequence = tail.getLastSequence();
+        state.balance = snapshotBalance + tail.getAmount();
+        state.loaded = true;
+    }
+
+    private static final class AccountState {
+
+        private volatile boolean loaded;
+
+        private volatile long balance;
+
+        private long lastSequence;
+    }
+}
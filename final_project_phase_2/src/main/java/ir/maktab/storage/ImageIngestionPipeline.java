@@ -0,0 +1,155 @@
+package ir.maktab.storage;
+
+import ir.maktab.exceptions.ImageQueueFullException;
+import ir.maktab.exceptions.InvalidImageException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Decodes, validates and normalizes uploaded images on a bounded worker pool. Callers only
+ * enqueue; when the queue is full the upload is rejected instead of blocking the request thread.
+ */
+@Component
+public class ImageIngestionPipeline {
+
+    private final ImageStore imageStore;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long maxBytes;
+
+    private final int maxDimension;
+
+    private final int normalizedSize;
+
+    private final int thumbnailSize;
+
+    private final float jpegQuality;
+
+    public ImageIngestionPipeline(ImageStore imageStore,
+                                  @Value("${app.image-pipeline.workers:2}") int workers,
+                                  @Value("${app.image-pipeline.queue-capacity:64}") int queueCapacity,
+                                  @Value("${app.image-pipeline.max-bytes:307200}") long maxBytes,
+                                  @Value("${app.image-pipeline.max-dimension:4096}") int maxDimension,
+                                  @Value("${app.image-pipeline.normalized-size:1024}") int normalizedSize,
+                                  @Value("${app.image-pipeline.thumbnail-size:128}") int thumbnailSize,
+                                  @Value("${app.image-pipeline.jpeg-quality:0.85}") float jpegQuality) {
+        this.imageStore = imageStore;
+        this.maxBytes = maxBytes;
+        this.maxDimension = maxDimension;
+        this.normalizedSize = normalizedSize;
+        this.thumbnailSize = thumbnailSize;
+        this.jpegQuality = jpegQuality;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-pipeline-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CompletableFuture<ProcessedImage> submit(Path source) {
+        try {
+            return CompletableFuture.supplyAsync(() -> process(source), executor);
+        } catch (RejectedExecutionException e) {
+            throw new ImageQueueFullException("the image processing queue is full, please try again later.");
+        }
+    }
+
+    public int queuedTasks() {
+        return executor.getQueue().size();
+    }
+
+    private ProcessedImage process(Path source) {
+        try {
+            if (Files.size(source) > maxBytes)
+                throw new InvalidImageException("the image size must not be more than " + maxBytes + " bytes.");
+            BufferedImage image = decode(source);
+            BufferedImage normalized = scale(image, normalizedSize);
+            BufferedImage thumbnail = scale(normalized, thumbnailSize);
+            String imageKey = imageStore.store(new ByteArrayInputStream(encodeJpeg(normalized)));
+            String thumbnailKey = imageStore.store(new ByteArrayInputStream(encodeJpeg(thumbnail)));
+            return new ProcessedImage(imageKey, thumbnailKey, normalized.getWidth(), normalized.getHeight());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BufferedImage decode(Path source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext())
+                throw new InvalidImageException("the uploaded file is not a supported image.");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if (width > maxDimension || height > maxDimension)
+                    throw new InvalidImageException("the image dimensions must not be more than " + maxDimension + " pixels.");
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        if (ratio == 1.0 && image.getType() == BufferedImage.TYPE_INT_RGB)
+            return image;
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(jpegQuality);
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(bos)) {
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bos.toByteArray();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
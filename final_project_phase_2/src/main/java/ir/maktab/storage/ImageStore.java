@@ -0,0 +1,110 @@
+package ir.maktab.storage;
+
+import ir.maktab.exceptions.ImageNotFoundException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+
+/**
+ * Content-addressed image store on the local filesystem. Every image is kept once under the
+ * SHA-256 of its bytes, so entities only hold the returned key and identical uploads share a file.
+ */
+@Component
+public class ImageStore {
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+
+    public ImageStore(@Value("${app.image-store.directory:data/images}") String directory) throws IOException {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+    }
+
+    public String store(Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return store(in);
+        }
+    }
+
+    public String store(InputStream in) throws IOException {
+        Path temp = Files.createTempFile(root, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                in.transferTo(out);
+            }
+            String key = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(key);
+            if (Files.notExists(target)) {
+                Files.createDirectories(target.getParent());
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException ignored) {
+                    // a concurrent upload of the same content won the race, its file is identical
+                }
+            }
+            return key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean exists(String key) {
+        return key != null && KEY_PATTERN.matcher(key).matches() && Files.exists(resolve(key));
+    }
+
+    public long size(String key) throws IOException {
+        return Files.size(existing(key));
+    }
+
+    public long transferTo(String key, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+            return size;
+        }
+    }
+
+    public ByteBuffer map(String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(existing(key), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Path existing(String key) {
+        if (!exists(key))
+            throw new ImageNotFoundException("no image found with this key.");
+        return resolve(key);
+    }
+
+    private Path resolve(String key) {
+        if (!KEY_PATTERN.matcher(key).matches())
+            throw new IllegalArgumentException("invalid image key: " + key);
+        return root.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package ir.maktab.storage;
+
+public record ProcessedImage(String imageKey, String thumbnailKey, int width, int height) {
+}
@@ -0,0 +1,69 @@
+package ir.maktab.entity;
+
+import ir.maktab.service.DutyService;
+import ir.maktab.support.QueryCounter;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Hands out ids in blocks of 50, as the application does. The other tests pin the allocation size to 1
+ * and share one schema, so this one creates a schema of its own and drops its tables afterwards.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:postgresql://localhost:5432/final_project_phase_2?currentSchema=id_allocation",
+        "spring.jpa.properties.hibernate.default_schema=id_allocation",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.app.id.allocation-size=50"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class PooledLoSequenceGeneratorTest {
+
+    private static final int ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private DutyService dutyService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DisplayName("JUnit test for ids handed out in blocks of the allocation size")
+    @Test
+    @Order(1)
+    void ids_in_blocks() {
+        List<Long> ids = new ArrayList<>();
+        List<String> statements = QueryCounter.record(() -> ids.addAll(save("first", 120)));
+
+        assertThat(statements).filteredOn(sql -> sql.contains("nextval")).hasSize(3);
+        for (int i = 1; i < ids.size(); i++)
+            assertThat(ids.get(i)).isEqualTo(ids.get(0) + i);
+    }
+
+    @DisplayName("JUnit test for ids skipping the block another node took")
+    @Test
+    @Order(2)
+    void ids_skip_block_of_another_node() {
+        Long lastId = jdbcTemplate.queryForObject("select max(id) from duty", Long.class);
+        Long taken = jdbcTemplate.queryForObject("select nextval('duty_seq')", Long.class);
+
+        List<Long> ids = save("second", 100);
+
+        assertThat(ids.get(0)).isEqualTo(lastId + 1);
+        assertThat(ids).doesNotHaveDuplicates()
+                .noneMatch(id -> id >= taken && id < taken + ALLOCATION_SIZE);
+    }
+
+    private List<Long> save(String prefix, int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            ids.add(dutyService.save(Duty.builder().name(prefix + " " + i).build()).getId());
+        return ids;
+    }
+}
@@ -0,0 +1,88 @@
+package ir.maktab.service;
+
+import ir.maktab.entity.Comments;
+import ir.maktab.entity.Customer;
+import ir.maktab.entity.Expert;
+import ir.maktab.exceptions.InvalidCommentScoreException;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class CommentsServiceTest {
+
+    @Autowired
+    private CommentsService commentsService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private ExpertService expertService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Customer customer;
+
+    private Expert expert;
+
+    @BeforeEach
+    void setUp() {
+        customer = customerService.findById(1L);
+        expert = expertService.findById(1L);
+    }
+
+    @DisplayName("JUnit test for saveComments method")
+    @Test
+    @Order(1)
+    void save_comments() {
+        commentsService.save(Comments.builder().customer(customer).expert(expert).score(5).content("great job").build());
+        commentsService.save(Comments.builder().customer(customer).expert(expert).score(3).content("was late").build());
+
+        Expert ratedExpert = expertService.findById(1L);
+        List<Comments> comments = commentsService.findAllByExpertId(1L);
+
+        assertThat(comments).hasSize(2);
+        assertThat(ratedExpert.getRatingCount()).isEqualTo(2);
+        assertThat(ratedExpert.getRatingSum()).isEqualTo(8);
+        assertThat(ratedExpert.getScore()).isEqualTo(4);
+    }
+
+    @DisplayName("JUnit test for saveComments method with invalid score")
+    @Test
+    @Order(2)
+    void save_comments_with_invalid_score() {
+        assertThatThrownBy(() -> commentsService.save(Comments.builder().customer(customer).expert(expert).score(6).build()))
+                .isInstanceOf(InvalidCommentScoreException.class)
+                .hasMessageContaining("the score must be between 1 and 5.");
+    }
+
+    @DisplayName("JUnit test for reconcileRatings method")
+    @Test
+    @Order(3)
+    void reconcileRatings() {
+        jdbcTemplate.update("update expert set rating_count = 7, rating_sum = 7, score = 1 where id = 1");
+
+        int corrected = commentsService.reconcileRatings();
+
+        Expert reconciledExpert = expertService.findById(1L);
+        assertThat(corrected).isEqualTo(1);
+        assertThat(reconciledExpert.getRatingCount()).isEqualTo(2);
+        assertThat(reconciledExpert.getRatingSum()).isEqualTo(8);
+        assertThat(reconciledExpert.getScore()).isEqualTo(4);
+        assertThat(commentsService.reconcileRatings()).isZero();
+
+        jdbcTemplate.update("update expert set score = 2 where id = 1");
+        assertThat(commentsService.reconcileRatings()).isEqualTo(1);
+        assertThat(expertService.findById(1L).getScore()).isEqualTo(4);
+    }
+}
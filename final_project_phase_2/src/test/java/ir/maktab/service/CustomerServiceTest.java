@@ -25,6 +25,8 @@ class CustomerServiceTest {
 
     private Customer customer;
 
+    // opens the wallet with a balance, as registration does
+    @SuppressWarnings("deprecation")
     @BeforeEach
     void setUp() {
         User user = userService.findById(1L);
@@ -0,0 +1,155 @@
+package ir.maktab.service;
+
+import ir.maktab.counter.OperationalCounters;
+import ir.maktab.entity.Expert;
+import ir.maktab.entity.Offers;
+import ir.maktab.entity.Orders;
+import ir.maktab.entity.enumeration.CounterCategory;
+import ir.maktab.entity.enumeration.ExpertStatus;
+import ir.maktab.entity.enumeration.OrderStatus;
+import ir.maktab.repository.OperationalCounterRepository;
+import ir.maktab.repository.OrdersRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static ir.maktab.entity.enumeration.ExpertStatus.ACCEPTED;
+import static ir.maktab.entity.enumeration.ExpertStatus.AWAITING_CONFIRMATION;
+import static ir.maktab.entity.enumeration.OrderStatus.WAITING_FOR_SPECIALIST_SELECTION;
+import static ir.maktab.entity.enumeration.OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class DashboardServiceTest {
+
+    private static Orders order;
+
+    @Autowired
+    private DashboardService dashboardService;
+
+    @Autowired
+    private OperationalCounters operationalCounters;
+
+    @Autowired
+    private OperationalCounterRepository counterRepository;
+
+    @Autowired
+    private OrdersRepository ordersRepository;
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private OffersService offersService;
+
+    @Autowired
+    private ExpertService expertService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private UnderDutyService underDutyService;
+
+    @DisplayName("JUnit test for reconcile method")
+    @Test
+    @Order(1)
+    void reconcile() {
+        operationalCounters.setOrders(OrderStatus.DONE, 12_345);
+
+        dashboardService.reconcile();
+
+        for (OrderStatus status : OrderStatus.values())
+            assertThat(dashboardService.countOrders(status)).isEqualTo(ordersRepository.countByOrderStatus(status));
+        assertThat(dashboardService.countOrdersOfUnderDuty(1L)).isPositive();
+    }
+
+    @DisplayName("JUnit test for counting saved orders and their status transitions")
+    @Test
+    @Order(2)
+    void countOrders() {
+        long waiting = dashboardService.countOrders(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS);
+        long selecting = dashboardService.countOrders(WAITING_FOR_SPECIALIST_SELECTION);
+        long ofUnderDuty = dashboardService.countOrdersOfUnderDuty(1L);
+
+        order = ordersService.save(Orders.builder()
+                .customer(customerService.findById(1L))
+                .proposedPrice(800_000L)
+                .description("Repairing a washing machine")
+                .dateAndTime(LocalDateTime.now().plusDays(1))
+                .address("tehran, vanak")
+                .orderStatus(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                .underDuty(underDutyService.findById(1L))
+                .build());
+        assertThat(dashboardService.countOrders(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)).isEqualTo(waiting + 1);
+        assertThat(dashboardService.countOrdersOfUnderDuty(1L)).isEqualTo(ofUnderDuty + 1);
+
+        ordersService.changeOrderStatus(order.getId(), WAITING_FOR_SPECIALIST_SELECTION);
+        assertThat(dashboardService.countOrders(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)).isEqualTo(waiting);
+        assertThat(dashboardService.countOrders(WAITING_FOR_SPECIALIST_SELECTION)).isEqualTo(selecting + 1);
+        assertThat(dashboardService.countOrdersOfUnderDuty(1L)).isEqualTo(ofUnderDuty + 1);
+    }
+
+    @DisplayName("JUnit test for counting expert status changes")
+    @Test
+    @Order(3)
+    void countExperts() {
+        Expert expert = expertService.findById(1L);
+        ExpertStatus status = expert.getStatus() == ACCEPTED ? AWAITING_CONFIRMATION : ACCEPTED;
+        long before = dashboardService.countExperts(expert.getStatus());
+        long after = dashboardService.countExperts(status);
+
+        expertService.updateExpertStatus(1L, status);
+        assertThat(dashboardService.countExperts(expert.getStatus())).isEqualTo(before - 1);
+        assertThat(dashboardService.countExperts(status)).isEqualTo(after + 1);
+
+        expertService.updateExpertStatus(1L, expert.getStatus());
+        assertThat(dashboardService.countExperts(expert.getStatus())).isEqualTo(before);
+        assertThat(dashboardService.countExperts(status)).isEqualTo(after);
+
+        // already in that status, so nothing is counted twice
+        expertService.updateExpertStatus(1L, expert.getStatus());
+        assertThat(dashboardService.countExperts(expert.getStatus())).isEqualTo(before);
+        assertThat(dashboardService.countExperts(status)).isEqualTo(after);
+    }
+
+    @DisplayName("JUnit test for counting offers per day")
+    @Test
+    @Order(4)
+    void countOffers() {
+        long today = dashboardService.countOffers(LocalDate.now());
+
+        offersService.save(Offers.builder()
+                .expert(expertService.findById(1L))
+                .proposedPrice(850_000L)
+                .suggestedTime(LocalDateTime.now().plusDays(2))
+                .durationOfWork("3 day")
+                .build(), order);
+
+        assertThat(dashboardService.countOffers(LocalDate.now())).isEqualTo(today + 1);
+        assertThat(dashboardService.getCounters().offersByDay()).containsEntry(LocalDate.now(), today + 1);
+    }
+
+    @DisplayName("JUnit test for flush and load methods")
+    @Test
+    @Order(5)
+    void flushAndLoad() {
+        long started = dashboardService.countOrders(OrderStatus.STARTED);
+
+        dashboardService.flush();
+        assertThat(counterRepository.findAll())
+                .filteredOn(counter -> counter.getCategory() == CounterCategory.ORDERS_BY_STATUS
+                        && counter.getCounterKey().equals("STARTED"))
+                .singleElement()
+                .satisfies(counter -> assertThat(counter.getCounterValue()).isEqualTo(started));
+
+        operationalCounters.setOrders(OrderStatus.STARTED, started + 10);
+        dashboardService.load();
+        assertThat(dashboardService.countOrders(OrderStatus.STARTED)).isEqualTo(started);
+    }
+}
@@ -1,13 +1,24 @@
 package ir.maktab.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ir.maktab.cache.CatalogCacheStatistics;
+import ir.maktab.config.CacheConfig;
+import ir.maktab.config.MetricsConfig;
+import ir.maktab.dto.DutyView;
 import ir.maktab.entity.Duty;
 import ir.maktab.exceptions.DutyExistException;
 import ir.maktab.exceptions.DutyNotFoundException;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -20,6 +31,15 @@ class DutyServiceTest {
     @Autowired
     private DutyService dutyService;
 
+    @Autowired
+    private CatalogCacheStatistics catalogCacheStatistics;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     private Duty buildingDecoration;
 
     private Duty homeAppliances;
@@ -62,7 +82,7 @@ class DutyServiceTest {
     @Test
     @Order(3)
     void findAll() {
-        List<Duty> duties = dutyService.findAll();
+        List<DutyView> duties = dutyService.findAll();
 
         assertThat(duties).isNotEmpty();
     }
@@ -79,4 +99,91 @@ class DutyServiceTest {
                 .isInstanceOf(DutyNotFoundException.class)
                 .hasMessageContaining("no duty found with this ID.");
     }
-}
\ No newline at end of file
+
+    @DisplayName("JUnit test for findAll method served from the catalog cache")
+    @Test
+    @Order(5)
+    void findAll_from_cache() {
+        dutyService.findAll();
+        long hits = catalogCacheStatistics.stats().get(CacheConfig.DUTIES).hitCount();
+
+        List<DutyView> duties = dutyService.findAll();
+
+        assertThat(duties).isNotEmpty();
+        assertThat(catalogCacheStatistics.stats().get(CacheConfig.DUTIES).hitCount()).isEqualTo(hits + 1);
+    }
+
+    @DisplayName("JUnit test for saveDuty method with concurrent saves of the same name")
+    @Test
+    @Order(6)
+    void save_duty_concurrently() throws InterruptedException {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Duty>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return dutyService.save(Duty.builder().name("Transportation").build());
+            }));
+        }
+        start.countDown();
+        int saved = 0;
+        int rejected = 0;
+        for (Future<Duty> result : results) {
+            try {
+                result.get();
+                saved++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(DutyExistException.class);
+                rejected++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(saved).isEqualTo(1);
+        assertThat(rejected).isEqualTo(threads - 1);
+        assertThat(dutyService.findAll()).filteredOn(duty -> duty.name().equals("Transportation")).hasSize(1);
+    }
+
+    @DisplayName("JUnit test for saveDuty method without a lookup before the insert")
+    @Test
+    @Order(7)
+    void save_duty_without_lookup() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+        long queries = statistics.getQueryExecutionCount();
+
+        dutyService.save(Duty.builder().name("Moving").build());
+        assertThatThrownBy(() -> dutyService.save(Duty.builder().name("Moving").build()))
+                .isInstanceOf(DutyExistException.class);
+
+        // one sequence call and one insert per save, no select by name
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(queries);
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(4);
+    }
+
+    @DisplayName("JUnit test for the service and repository timers")
+    @Test
+    @Order(8)
+    void timers() {
+        long failures = count(meterRegistry.find(MetricsConfig.SERVICE_METRIC).tag("class", DutyService.class.getName())
+                .tag("method", "findById").tag("exception", DutyNotFoundException.class.getSimpleName()).timer());
+        long lookups = count(meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "DutyRepository").tag("method", "findById").tag("state", "SUCCESS").timer());
+
+        assertThatThrownBy(() -> dutyService.findById(56L))
+                .isInstanceOf(DutyNotFoundException.class);
+
+        assertThat(count(meterRegistry.find(MetricsConfig.SERVICE_METRIC).tag("class", DutyService.class.getName())
+                .tag("method", "findById").tag("exception", DutyNotFoundException.class.getSimpleName()).timer()))
+                .isEqualTo(failures + 1);
+        assertThat(count(meterRegistry.find("spring.data.repository.invocations")
+                .tag("repository", "DutyRepository").tag("method", "findById").tag("state", "SUCCESS").timer()))
+                .isEqualTo(lookups + 1);
+    }
+
+    private static long count(Timer timer) {
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -1,24 +1,31 @@
 package ir.maktab.service;
 
+import ir.maktab.dto.ExpertCandidate;
 import ir.maktab.entity.Expert;
 import ir.maktab.entity.UnderDuty;
 import ir.maktab.entity.User;
 import ir.maktab.exceptions.ExpertNotFoundException;
-import ir.maktab.utils.ConvertUrlToByteArray;
+import ir.maktab.storage.ImageStore;
+import ir.maktab.storage.ProcessedImage;
+import ir.maktab.support.QueryCounter;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
 
+import javax.imageio.ImageIO;
 import javax.sql.DataSource;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import static ir.maktab.entity.enumeration.ExpertStatus.*;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -39,17 +46,24 @@ class ExpertServiceTest {
     private UserService userService;
 
     @Autowired
-    private ConvertUrlToByteArray convertUrlToByteArray;
+    private ImageStore imageStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
     private Expert expert;
 
+    // opens the wallet with a balance, as registration does
+    @SuppressWarnings("deprecation")
     @BeforeEach
     void setUp() throws IOException {
         User user = userService.findById(2);
+        Path photo = Files.createTempFile("expert", ".jpg");
+        ImageIO.write(new BufferedImage(300, 300, BufferedImage.TYPE_INT_RGB), "jpg", photo.toFile());
 
         expert = Expert.builder()
                 .status(NEW)
-                .imageUrl(convertUrlToByteArray.convertToByteArray("C:\\Users\\phylix\\Downloads\\download.jpg"))
+                .imageKey(imageStore.store(photo))
                 .validity(100_000L)
                 .score(0)
                 .user(user).build();
@@ -90,10 +104,11 @@ class ExpertServiceTest {
     @Test
     @Order(4)
     void saveExpertImage() throws IOException {
-        expertService.saveExpertImage(expert.getUser().getEmail());
+        Path directory = Files.createTempDirectory("expert-images");
+        Path path = expertService.saveExpertImage(expert.getUser().getEmail(), directory);
 
-        Path path = Paths.get("H:\\maktab83\\final_project_phase2\\final_project_phase_2\\src\\main\\java\\ir\\maktab\\images\\" + expert.getUser().getLastname() + ".jpg");
         assertThat(path).exists();
+        assertThat(Files.size(path)).isEqualTo(imageStore.size(expert.getImageKey()));
     }
 
     @DisplayName("JUnit test for update expert status method")
@@ -117,6 +132,7 @@ class ExpertServiceTest {
 
         Expert newExpert = expertService.update(foundedExpert);
         assertThat(newExpert.getUnderDutySet()).isNotEmpty();
+        assertThat(expertService.findTopCandidates(1L, 10)).extracting(ExpertCandidate::expertId).containsExactly(1L);
     }
 
     @DisplayName("JUnit test for remove expert from under duty method")
@@ -131,6 +147,68 @@ class ExpertServiceTest {
 
         Expert newExpert = expertService.update(foundedExpert);
         assertThat(newExpert.getUnderDutySet()).isEmpty();
+        assertThat(expertService.findTopCandidates(1L, 10)).isEmpty();
+    }
+
+    @DisplayName("JUnit test for upload expert image method")
+    @Test
+    @Order(8)
+    void uploadExpertImage() throws Exception {
+        Path source = Files.createTempFile("expert", ".png");
+        ImageIO.write(new BufferedImage(640, 480, BufferedImage.TYPE_INT_ARGB), "png", source.toFile());
+
+        ProcessedImage image = expertService.uploadExpertImage(1L, source).get(10, TimeUnit.SECONDS);
+
+        assertThat(imageStore.exists(image.imageKey())).isTrue();
+        assertThat(imageStore.exists(image.thumbnailKey())).isTrue();
+        assertThat(expertService.findById(1L).getThumbnailKey()).isEqualTo(image.thumbnailKey());
+    }
+
+    @DisplayName("JUnit test for updateExpertStatus method")
+    @Test
+    @Order(9)
+    void updateExpertStatus() {
+        String thumbnailKey = expertService.findById(1L).getThumbnailKey();
+
+        expertService.updateExpertStatus(1L, AWAITING_CONFIRMATION);
+        assertThat(expertService.findById(1L).getStatus()).isEqualTo(AWAITING_CONFIRMATION);
+
+        expertService.updateExpertStatus(1L, ACCEPTED);
+        Expert foundedExpert = expertService.findById(1L);
+        assertThat(foundedExpert.getStatus()).isEqualTo(ACCEPTED);
+        assertThat(foundedExpert.getThumbnailKey()).isEqualTo(thumbnailKey);
+
+        assertThatThrownBy(() -> expertService.updateExpertStatus(56L, ACCEPTED))
+                .isInstanceOf(ExpertNotFoundException.class)
+                .hasMessageContaining("no expert found with this ID.");
+    }
+
+    @DisplayName("JUnit test for update method leaving the score to the comments")
+    @Test
+    @Order(10)
+    void update_does_not_write_score() {
+        Expert foundedExpert = expertService.findById(1L);
+        Integer score = foundedExpert.getScore();
+        jdbcTemplate.update("update expert set score = 4 where id = 1");
+
+        expertService.update(foundedExpert);
+
+        assertThat(expertService.findById(1L).getScore()).isEqualTo(4);
+        jdbcTemplate.update("update expert set score = ? where id = 1", score);
+    }
+
+    @DisplayName("JUnit test for the statement budgets of the read methods")
+    @Test
+    @Order(11)
+    void statement_budgets() {
+        Expert expert = QueryCounter.withinBudget(1, () -> expertService.findById(1L));
+        assertThat(expert.getUser().getEmail()).isNotNull();
+        assertThat(expert.getUnderDutySet()).allSatisfy(underDuty -> assertThat(underDuty.getDuty().getName()).isNotNull());
+
+        List<Expert> experts = QueryCounter.withinBudget(1, () -> expertService.findAllByStatus(ACCEPTED));
+        assertThat(experts).allSatisfy(accepted -> assertThat(accepted.getUser().getEmail()).isNotNull());
+
+        QueryCounter.withinBudget(0, () -> expertService.findTopCandidates(1L, 10));
     }
 
     @AfterAll
@@ -0,0 +1,108 @@
+package ir.maktab.service;
+
+import ir.maktab.dto.NearbyExpert;
+import ir.maktab.dto.NearbyOrder;
+import ir.maktab.entity.Orders;
+import ir.maktab.exceptions.InvalidLocationException;
+import ir.maktab.geo.GeoPoint;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static ir.maktab.entity.enumeration.OrderStatus.WAITING_FOR_SPECIALIST_SELECTION;
+import static ir.maktab.entity.enumeration.OrderStatus.WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE;
+import static ir.maktab.entity.enumeration.OrderStatus.WAITING_FOR_THE_SUGGESTION_OF_EXPERTS;
+import static org.assertj.core.api.Assertions.*;
+
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class GeoServiceTest {
+
+    private static final GeoPoint EXPERT_LOCATION = new GeoPoint(35.7000, 51.4000);
+
+    private static Long orderId;
+
+    @Autowired
+    private GeoService geoService;
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private ExpertService expertService;
+
+    @Autowired
+    private CustomerService customerService;
+
+    @Autowired
+    private UnderDutyService underDutyService;
+
+    private Orders order(long underDutyId, double latitude, double longitude) {
+        return Orders.builder()
+                .customer(customerService.findById(1L))
+                .proposedPrice(800_000L)
+                .description("Repairing a washing machine")
+                .dateAndTime(LocalDateTime.now().plusDays(1))
+                .address("tehran, vanak")
+                .latitude(latitude)
+                .longitude(longitude)
+                .orderStatus(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
+                .underDuty(underDutyService.findById(underDutyId))
+                .build();
+    }
+
+    @DisplayName("JUnit test for findNearestExperts method")
+    @Test
+    @Order(1)
+    void findNearestExperts() {
+        expertService.updateExpertLocation(1L, EXPERT_LOCATION.latitude(), EXPERT_LOCATION.longitude());
+        orderId = ordersService.save(order(1L, 35.7575, 51.4100)).getId();
+
+        List<NearbyExpert> experts = geoService.findNearestExperts(orderId, 5);
+
+        assertThat(experts).extracting(NearbyExpert::expertId).containsExactly(1L);
+        assertThat(experts.get(0).distanceKm()).isCloseTo(6.46, within(0.1));
+    }
+
+    @DisplayName("JUnit test for findNearbyOpenOrders method")
+    @Test
+    @Order(2)
+    void findNearbyOpenOrders() {
+        Long otherUnderDutyOrderId = ordersService.save(order(2L, 35.7575, 51.4100)).getId();
+
+        List<NearbyOrder> orders = geoService.findNearbyOpenOrders(1L, null, 10, 10);
+
+        assertThat(orders).extracting(nearby -> nearby.order().getId())
+                .contains(orderId)
+                .doesNotContain(otherUnderDutyOrderId);
+        assertThat(geoService.findNearbyOpenOrders(1L, EXPERT_LOCATION, 5, 10)).isEmpty();
+    }
+
+    @DisplayName("JUnit test for findNearbyOpenOrders method after the order left bidding")
+    @Test
+    @Order(3)
+    void findNearbyOpenOrders_after_leaving_bidding() {
+        ordersService.changeOrderStatus(orderId, WAITING_FOR_SPECIALIST_SELECTION);
+        ordersService.changeOrderStatus(orderId, WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
+
+        assertThat(geoService.findNearbyOpenOrders(1L, EXPERT_LOCATION, 10, 10))
+                .extracting(nearby -> nearby.order().getId())
+                .doesNotContain(orderId);
+    }
+
+    @DisplayName("JUnit test for invalid locations")
+    @Test
+    @Order(4)
+    void invalid_location() {
+        assertThatThrownBy(() -> ordersService.save(order(1L, 95, 51.41)))
+                .isInstanceOf(InvalidLocationException.class)
+                .hasMessageContaining("the location is not a valid latitude and longitude.");
+        assertThatThrownBy(() -> expertService.updateExpertLocation(1L, 35.7, null))
+                .isInstanceOf(InvalidLocationException.class)
+                .hasMessageContaining("a location needs both a latitude and a longitude.");
+    }
+}
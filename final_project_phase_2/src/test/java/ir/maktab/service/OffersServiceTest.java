@@ -1,11 +1,13 @@
 package ir.maktab.service;
 
+import ir.maktab.dto.RankedOffer;
 import ir.maktab.entity.Expert;
 import ir.maktab.entity.Offers;
 import ir.maktab.entity.Orders;
 import ir.maktab.exceptions.DateAndTimeException;
 import ir.maktab.exceptions.LessProposedPriceException;
 import ir.maktab.exceptions.OffersNotFoundException;
+import ir.maktab.support.QueryCounter;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -16,6 +18,7 @@ import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -58,28 +61,29 @@ class OffersServiceTest {
     void setUp() {
         Expert expert = expertService.findById(1L);
         order = ordersService.findOrderInOrdersList(1L, 1L);
+        LocalDateTime suggestedTime = order.getDateAndTime().plusDays(1).plusHours(1);
         offers = Offers.builder()
                 .expert(expert)
                 .proposedPrice(850_000L)
-                .suggestedTime(LocalDateTime.of(2023,2,21,11,45))
+                .suggestedTime(suggestedTime)
                 .durationOfWork("3 day")
                 .build();
         offerWithLessProposedPrice = Offers.builder()
                 .expert(expert)
                 .proposedPrice(500_000L)
-                .suggestedTime(LocalDateTime.of(2023,2,21,11,45))
+                .suggestedTime(suggestedTime)
                 .durationOfWork("3 day")
                 .build();
         offerWithLessTimeNow = Offers.builder()
                 .expert(expert)
                 .proposedPrice(850_000L)
-                .suggestedTime(LocalDateTime.of(2020,2,21,11,45))
+                .suggestedTime(LocalDateTime.now().minusYears(1))
                 .durationOfWork("3 day")
                 .build();
         offerWithLessSuggestedTime = Offers.builder()
                 .expert(expert)
                 .proposedPrice(850_000L)
-                .suggestedTime(LocalDateTime.of(2023,2,19,11,45))
+                .suggestedTime(order.getDateAndTime().minusDays(1))
                 .durationOfWork("3 day")
                 .build();
     }
@@ -88,9 +92,12 @@ class OffersServiceTest {
     @Test
     @Order(1)
     void save_offer() {
+        offersService.findRankedOffers(order.getId());
         Offers foundedOffer = offersService.save(offers, order);
 
         assertThat(foundedOffer.getId()).isEqualTo(4);
+        // not linked to the order, so not ranked for it either
+        assertThat(offersService.findRankedOffers(order.getId())).extracting(RankedOffer::id).doesNotContain(4L);
     }
 
     @DisplayName("JUnit test for saveOffer with less proposed price method")
@@ -153,5 +160,49 @@ class OffersServiceTest {
         assertThat(nullOffer).isNull();
     }
 
+    @DisplayName("JUnit test for ranked offers and best offer methods")
+    @Test
+    @Order(8)
+    void findRankedOffers_and_bestOffer() {
+        List<RankedOffer> rankedOffers = offersService.findRankedOffers(1L);
+        List<Offers> offers = offersService.findAllByOrderId(1L);
 
-}
\ No newline at end of file
+        assertThat(rankedOffers).extracting(RankedOffer::id).containsExactlyElementsOf(offers.stream().map(Offers::getId).toList());
+        assertThat(offersService.findBestOffer(1L).proposedPrice()).isEqualTo(800_000);
+    }
+
+    @DisplayName("JUnit test for the statement budgets of the read methods with 50 offers")
+    @Test
+    @Order(9)
+    void statement_budgets() {
+        Orders newOrder = ordersService.save(Orders.builder()
+                .customer(order.getCustomer())
+                .underDuty(order.getUnderDuty())
+                .proposedPrice(order.getProposedPrice())
+                .dateAndTime(order.getDateAndTime())
+                .address(order.getAddress())
+                .description(order.getDescription())
+                .orderStatus(order.getOrderStatus())
+                .build());
+        Orders foundedOrder = ordersService.findById(newOrder.getId());
+        for (int i = 0; i < 50; i++) {
+            Offers offer = offersService.save(Offers.builder()
+                    .expert(offers.getExpert())
+                    .proposedPrice(850_000L + i)
+                    .suggestedTime(offers.getSuggestedTime())
+                    .durationOfWork("3 day")
+                    .ordersSet(new HashSet<>())
+                    .build(), foundedOrder);
+            ordersService.addOffers(foundedOrder, offer);
+        }
+        Long orderId = foundedOrder.getId();
+
+        List<Offers> offerList = QueryCounter.withinBudget(1, () -> offersService.findAllByOrderId(orderId));
+        assertThat(offerList).hasSize(50)
+                .allSatisfy(offer -> assertThat(offer.getExpert().getUser().getEmail()).isNotNull());
+
+        assertThat(QueryCounter.withinBudget(1, () -> offersService.findOfferSummaries(orderId))).hasSize(50);
+        QueryCounter.withinBudget(1, () -> offersService.findRankedOffers(orderId));
+        QueryCounter.withinBudget(0, () -> offersService.findBestOffer(orderId));
+    }
+}
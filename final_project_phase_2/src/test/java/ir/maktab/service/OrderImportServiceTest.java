@@ -0,0 +1,99 @@
+package ir.maktab.service;
+
+import ir.maktab.dto.OrderImportError;
+import ir.maktab.dto.OrderImportReport;
+import ir.maktab.dto.OrderSummary;
+import ir.maktab.exceptions.OrderImportException;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@SpringBootTest
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class OrderImportServiceTest {
+
+    @Autowired
+    private OrderImportService orderImportService;
+
+    @Autowired
+    private OrdersService ordersService;
+
+    private String dateAndTime;
+
+    @BeforeEach
+    void setUp() {
+        dateAndTime = LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.MINUTES).toString();
+    }
+
+    @DisplayName("JUnit test for importCsv method")
+    @Test
+    @Order(1)
+    void import_csv() {
+        int openOrders = ordersService.findOpenOrderSummaries(1L).size();
+        String csv = """
+                address,customerId,underDutyId,proposedPrice,dateAndTime,description
+                "guilan, rasht",1,1,750000,%1$s,Repairing a dishwasher
+                "tehran, \"\"vanak\"\"",1,1,800000,%1$s,"Repairing a fridge,
+                the freezer is not cold"
+                guilan,1,1,100000,%1$s,price is lower than the base price
+                guilan,999999,1,750000,%1$s,unknown customer
+                guilan,1,1,abc,%1$s,proposed price is not a number
+                """.formatted(dateAndTime);
+
+        OrderImportReport report = orderImportService.importCsv(stream(csv));
+
+        assertThat(report.totalRows()).isEqualTo(5);
+        assertThat(report.importedRows()).isEqualTo(2);
+        assertThat(report.failedRows()).isEqualTo(3);
+        assertThat(report.errors()).extracting(OrderImportError::row).containsExactlyInAnyOrder(3L, 4L, 5L);
+        assertThat(report.rowsPerSecond()).isPositive();
+        List<OrderSummary> summaries = ordersService.findOpenOrderSummaries(1L);
+        assertThat(summaries).hasSize(openOrders + 2);
+        assertThat(summaries).extracting(OrderSummary::getAddress).contains("guilan, rasht", "tehran, \"vanak\"");
+    }
+
+    @DisplayName("JUnit test for importNdjson method")
+    @Test
+    @Order(2)
+    void import_ndjson() {
+        String ndjson = """
+                {"customerId":1,"underDutyId":1,"proposedPrice":900000,"dateAndTime":"%1$s","address":"guilan, lahijan"}
+                {"customerId":1,"underDutyId":1,"proposedPrice":
+                {"customerId":1,"underDutyId":1,"proposedPrice":900000,"dateAndTime":"2020-01-01T10:00","address":"guilan"}
+
+                {"customerId":1,"underDutyId":1,"proposedPrice":950000,"dateAndTime":"%1$s","address":"guilan, anzali"}
+                """.formatted(dateAndTime);
+
+        OrderImportReport report = orderImportService.importNdjson(stream(ndjson));
+
+        assertThat(report.totalRows()).isEqualTo(4);
+        assertThat(report.importedRows()).isEqualTo(2);
+        assertThat(report.errors()).extracting(OrderImportError::row).containsExactly(2L, 3L);
+    }
+
+    @DisplayName("JUnit test for importCsv method with missing column")
+    @Test
+    @Order(3)
+    void import_csv_with_missing_column() {
+        String csv = "customerId,underDutyId,proposedPrice,dateAndTime\n1,1,750000," + dateAndTime + "\n";
+
+        assertThatThrownBy(() -> orderImportService.importCsv(stream(csv)))
+                .isInstanceOf(OrderImportException.class)
+                .hasMessage("the csv header has no 'address' column.");
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
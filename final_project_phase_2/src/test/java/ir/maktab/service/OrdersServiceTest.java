@@ -1,24 +1,32 @@
 package ir.maktab.service;
 
 
+import ir.maktab.dto.OrderFeedPage;
+import ir.maktab.dto.OrderSummary;
 import ir.maktab.entity.Customer;
 import ir.maktab.entity.Offers;
 import ir.maktab.entity.Orders;
 import ir.maktab.entity.UnderDuty;
-import ir.maktab.exceptions.DateAndTimeException;
-import ir.maktab.exceptions.LessProposedPriceException;
-import ir.maktab.exceptions.OrderNotFoundException;
+import ir.maktab.event.OrderCreatedEvent;
+import ir.maktab.event.OrderStatusChangedEvent;
+import ir.maktab.exceptions.*;
+import ir.maktab.support.QueryCounter;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.*;
 
 
 import static ir.maktab.entity.enumeration.OrderStatus.*;
@@ -27,6 +35,7 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 @SpringBootTest
+@RecordApplicationEvents
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class OrdersServiceTest {
 
@@ -51,6 +60,9 @@ class OrdersServiceTest {
     @Autowired
     private OffersService offersService;
 
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     private Orders orders;
 
     private Orders ordersWithLessProposedPrice;
@@ -61,11 +73,12 @@ class OrdersServiceTest {
     void setUp() {
         Customer customer = customerService.findById(1L);
         UnderDuty underDuty = underDutyService.findById(1L);
+        LocalDateTime dateAndTime = LocalDateTime.now().plusDays(30).truncatedTo(ChronoUnit.MINUTES);
         orders = Orders.builder()
                 .customer(customer)
                 .proposedPrice(750_000L)
                 .description("Repairing a three-function vegetable chopper")
-                .dateAndTime(LocalDateTime.of(2023,2,20,10,22))
+                .dateAndTime(dateAndTime)
                 .address("guilan, rasht")
                 .orderStatus(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
                 .underDuty(underDuty)
@@ -74,7 +87,7 @@ class OrdersServiceTest {
                 .customer(customer)
                 .proposedPrice(600_000L)
                 .description("Repairing a three-function vegetable chopper")
-                .dateAndTime(LocalDateTime.of(2023,2,20,10,22))
+                .dateAndTime(dateAndTime)
                 .address("guilan, rasht")
                 .orderStatus(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
                 .underDuty(underDuty)
@@ -83,7 +96,7 @@ class OrdersServiceTest {
                 .customer(customer)
                 .proposedPrice(750_000L)
                 .description("Repairing a three-function vegetable chopper")
-                .dateAndTime(LocalDateTime.of(2022,2,20,10,22))
+                .dateAndTime(LocalDateTime.now().minusYears(1))
                 .address("guilan, rasht")
                 .orderStatus(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS)
                 .underDuty(underDuty)
@@ -97,6 +110,8 @@ class OrdersServiceTest {
         Orders newOrder = ordersService.save(orders);
 
         assertThat(newOrder).isNotNull();
+        assertThat(applicationEvents.stream(OrderCreatedEvent.class))
+                .extracting(OrderCreatedEvent::orderId).containsExactly(newOrder.getId());
     }
 
     @DisplayName("JUnit test for saveOrder method with less proposed price")
@@ -126,9 +141,24 @@ class OrdersServiceTest {
         assertThat(ordersList).isNotEmpty();
     }
 
-    @DisplayName("JUnit test for findById method")
+    @DisplayName("JUnit test for keyset paginated open orders feed method")
     @Test
     @Order(5)
+    void findOpenOrderFeed() {
+        ordersService.save(orders);
+
+        OrderFeedPage firstPage = ordersService.findOpenOrderFeed(1L, null, 1);
+        OrderFeedPage secondPage = ordersService.findOpenOrderFeed(1L, firstPage.nextCursor(), 1);
+
+        assertThat(firstPage.orders()).hasSize(1);
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.orders()).hasSize(1);
+        assertThat(secondPage.orders().get(0).getId()).isGreaterThan(firstPage.orders().get(0).getId());
+    }
+
+    @DisplayName("JUnit test for findById method")
+    @Test
+    @Order(6)
     void findById() {
         Orders newOrders = ordersService.findById(1L);
 
@@ -141,7 +171,7 @@ class OrdersServiceTest {
 
     @DisplayName("JUnit test for add offers for orders method")
     @Test
-    @Order(6)
+    @Order(7)
     void addOffers_for_orders() {
         Orders foundedOrder = ordersService.findById(1L);
         Offers offers1 = offersService.findById(1L);
@@ -151,25 +181,41 @@ class OrdersServiceTest {
         ordersService.addOffers(foundedOrder, offers1);
         ordersService.addOffers(foundedOrder, offers2);
         ordersService.addOffers(foundedOrder, offers3);
+        ordersService.addOffers(foundedOrder, offers3);
 
-        Orders newOrder = ordersService.update(foundedOrder);
+        Orders newOrder = ordersService.findById(1L);
         assertThat(newOrder.getOffersSet().size()).isEqualTo(3);
+        assertThat(newOrder.getOrderStatus()).isEqualTo(WAITING_FOR_SPECIALIST_SELECTION);
+        assertThat(applicationEvents.stream(OrderStatusChangedEvent.class))
+                .singleElement()
+                .satisfies(event -> assertThat(event.from()).isEqualTo(WAITING_FOR_THE_SUGGESTION_OF_EXPERTS));
     }
 
-    @DisplayName("JUnit test for update order status to waiting for specialist selection method")
+    @DisplayName("JUnit test for update method")
     @Test
-    @Order(7)
-    void update_order_status_to_waiting_for_specialist_selection() {
+    @Order(8)
+    void update() {
         Orders foundedOrder = ordersService.findById(1L);
-        foundedOrder.setOrderStatus(WAITING_FOR_SPECIALIST_SELECTION);
+        foundedOrder.setOrderStatus(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
+
+        assertThatThrownBy(() -> ordersService.update(foundedOrder))
+                .isInstanceOf(InvalidOrderStatusTransitionException.class)
+                .hasMessageContaining("the status of an order can only be changed through its transitions.");
 
+        foundedOrder.setOrderStatus(WAITING_FOR_SPECIALIST_SELECTION);
+        foundedOrder.setAddress("guilan, rasht, golsar");
         Orders newOrder = ordersService.update(foundedOrder);
-        assertThat(newOrder.getOrderStatus()).isEqualTo(WAITING_FOR_SPECIALIST_SELECTION);
+        assertThat(newOrder.getAddress()).isEqualTo("guilan, rasht, golsar");
+        assertThat(newOrder.getOffersSet().size()).isEqualTo(3);
+
+        assertThatThrownBy(() -> ordersService.update(foundedOrder))
+                .isInstanceOf(OrderConflictException.class)
+                .hasMessageContaining("the order was changed by someone else, please try again.");
     }
 
     @DisplayName("JUnit test for find order from order list method")
     @Test
-    @Order(8)
+    @Order(9)
     void findOrderInOrdersList() {
         Orders foundedOrder = ordersService.findOrderInOrdersList(1L, 1L);
 
@@ -178,27 +224,33 @@ class OrdersServiceTest {
 
     @DisplayName("JUnit test for select offer method")
     @Test
-    @Order(9)
+    @Order(10)
     void selectOfferForOrder() {
         Orders newOrder = ordersService.selectOfferForOrder(1L, 1L);
 
         assertThat(newOrder.getExpert().getId()).isEqualTo(1L);
+        assertThat(newOrder.getAcceptedOffer().getId()).isEqualTo(1L);
+        assertThat(newOrder.getOrderStatus()).isEqualTo(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
+        assertThat(applicationEvents.stream(OrderStatusChangedEvent.class))
+                .singleElement()
+                .satisfies(event -> {
+                    assertThat(event.from()).isEqualTo(WAITING_FOR_SPECIALIST_SELECTION);
+                    assertThat(event.leftBidding()).isTrue();
+                });
     }
 
-    @DisplayName("JUnit test for update order status to waiting for the specialist to come to your place method")
+    @DisplayName("JUnit test for select offer method once an offer is selected")
     @Test
-    @Order(10)
-    void update_order_status_to_waiting_for_the_specialist_to_come_to_your_place() {
-        Orders foundedOrder = ordersService.findById(1L);
-        foundedOrder.setOrderStatus(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
-
-        Orders newOrder = ordersService.update(foundedOrder);
-        assertThat(newOrder.getOrderStatus()).isEqualTo(WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
+    @Order(11)
+    void selectOfferForOrder_twice() {
+        assertThatThrownBy(() -> ordersService.selectOfferForOrder(1L, 2L))
+                .isInstanceOf(InvalidOrderStatusTransitionException.class)
+                .hasMessageContaining("an offer can only be selected while the order is waiting for specialist selection.");
     }
 
     @DisplayName("JUnit test for update order status to started method")
     @Test
-    @Order(11)
+    @Order(12)
     void update_order_status_to_started() {
         assertThatThrownBy(() -> ordersService.updateOrderStatusToStarted(1L, 1L))
                 .isInstanceOf(DateAndTimeException.class)
@@ -207,10 +259,90 @@ class OrdersServiceTest {
 
     @DisplayName("JUnit test for update order status to done method")
     @Test
-    @Order(12)
+    @Order(13)
     void update_order_status_to_done() {
         assertThatThrownBy(() -> ordersService.updateOrderStatusToDone(1L, 1L))
                 .isInstanceOf(DateAndTimeException.class)
                 .hasMessageContaining("You cannot change the status of a task to 'Done' before it starts.");
     }
-}
\ No newline at end of file
+
+    @DisplayName("JUnit test for changeOrderStatus method with a transition that is not allowed")
+    @Test
+    @Order(14)
+    void changeOrderStatus_with_invalid_transition() {
+        assertThatThrownBy(() -> ordersService.changeOrderStatus(1L, PAID))
+                .isInstanceOf(InvalidOrderStatusTransitionException.class)
+                .hasMessageContaining("an order cannot go from WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE to PAID.");
+    }
+
+    @DisplayName("JUnit test for changeOrderStatus method with concurrent transitions")
+    @Test
+    @Order(15)
+    void changeOrderStatus_concurrently() throws InterruptedException {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                ordersService.changeOrderStatus(1L, STARTED);
+                return null;
+            }));
+        }
+        start.countDown();
+        int changed = 0;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+                changed++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOfAny(OrderConflictException.class,
+                        InvalidOrderStatusTransitionException.class);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(changed).isEqualTo(1);
+        assertThat(ordersService.findById(1L).getOrderStatus()).isEqualTo(STARTED);
+    }
+
+    @DisplayName("JUnit test for searchOpenOrders method")
+    @Test
+    @Order(16)
+    void searchOpenOrders() {
+        // "washing machine repair", "tehran, vanak"
+        orders.setDescription("تعمیر ماشین لباسشویی");
+        orders.setAddress("تهران، ونک");
+        Orders newOrder = ordersService.save(orders);
+        // "repair" typed with an arabic yeh, then the prefix of "washing"
+        String query = "تعمير لباس";
+
+        assertThat(ordersService.searchOpenOrders(1L, query, 10)).extracting(OrderSummary::getId)
+                .containsExactly(newOrder.getId());
+        assertThat(ordersService.searchOpenOrders(null, "ونک", 10)).extracting(OrderSummary::getId)
+                .containsExactly(newOrder.getId());
+        assertThat(ordersService.searchOpenOrders(2L, query, 10)).isEmpty();
+
+        ordersService.changeOrderStatus(newOrder.getId(), WAITING_FOR_SPECIALIST_SELECTION);
+        ordersService.changeOrderStatus(newOrder.getId(), WAITING_FOR_THE_SPECIALIST_TO_COME_TO_YOUR_PLACE);
+
+        assertThat(ordersService.searchOpenOrders(1L, query, 10)).isEmpty();
+    }
+
+    @DisplayName("JUnit test for the statement budgets of the read methods")
+    @Test
+    @Order(17)
+    void statement_budgets() {
+        Orders order = QueryCounter.withinBudget(1, () -> ordersService.findById(1L));
+        assertThat(order.getOffersSet()).allSatisfy(offer -> assertThat(offer.getExpert()).isNotNull());
+
+        List<Orders> ordersList = QueryCounter.withoutRepeatedSelects(() -> ordersService.findAllByUnderDutyIdAndStatus(1L));
+        assertThat(ordersList).isNotEmpty();
+        QueryCounter.withinBudget(1, () -> ordersService.findAllByUnderDutyIdAndStatus(1L));
+
+        QueryCounter.withinBudget(1, () -> ordersService.findOrderInOrdersList(1L, 1L));
+        QueryCounter.withinBudget(1, () -> ordersService.findOpenOrderSummaries(1L));
+        QueryCounter.withinBudget(1, () -> ordersService.findOpenOrderFeed(1L, null, 10));
+    }
+}
@@ -0,0 +1,121 @@
+package ir.maktab.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import ir.maktab.dto.SettlementReport;
+import ir.maktab.dto.WalletAccount;
+import ir.maktab.entity.enumeration.OrderStatus;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+@SpringBootTest(properties = {"app.settlement.partitions=2", "app.settlement.chunk-size=2"})
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class SettlementServiceTest {
+
+    @BeforeAll
+    static void setUp(@Autowired DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(connection, new ClassPathResource("AddDoneOrdersBeforeAll.sql"));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Autowired
+    private SettlementService settlementService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private OrdersService ordersService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final WalletAccount customer = WalletAccount.customer(1L);
+
+    private final WalletAccount expert = WalletAccount.expert(1L);
+
+    @DisplayName("JUnit test for settle method with an insufficient customer balance")
+    @Test
+    @Order(1)
+    void settle_with_insufficient_balance() {
+        walletService.deposit(customer, 400_000L - walletService.balance(customer), "settlement-test:1");
+        long expertBalance = walletService.balance(expert);
+        double settledAmount = meterRegistry.get(SettlementService.METRIC + ".amount").counter().count();
+
+        SettlementReport report = settlementService.settle();
+
+        assertThat(report.partitions()).isEqualTo(2);
+        assertThat(report.settledOrders()).isEqualTo(4);
+        assertThat(report.settledAmount()).isEqualTo(400_000L);
+        assertThat(report.skippedOrders()).isEqualTo(1);
+        assertThat(report.failedChunks()).isZero();
+        assertThat(report.remainingOrders()).isEqualTo(1);
+        assertThat(walletService.balance(customer)).isZero();
+        assertThat(walletService.balance(expert)).isEqualTo(expertBalance + 400_000L);
+        // order 1001 is paid the price of the offer it accepted, not of its expert's earlier offer
+        assertThat(meterRegistry.get(SettlementService.METRIC + ".amount").counter().count())
+                .isEqualTo(settledAmount + 400_000d);
+        assertThat(meterRegistry.get(SettlementService.METRIC + ".remaining.orders").gauge().value()).isEqualTo(1d);
+    }
+
+    @DisplayName("JUnit test for settle method")
+    @Test
+    @Order(2)
+    void settle() {
+        walletService.deposit(customer, 100_000L, "settlement-test:2");
+
+        SettlementReport deferred = settlementService.settle();
+
+        assertThat(deferred.settledOrders()).isZero();
+        assertThat(deferred.skippedOrders()).isZero();
+        assertThat(deferred.remainingOrders()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from orders where order_status = 'DONE' " +
+                "and settlement_attempts = 1 and settle_after > now()", Long.class)).isEqualTo(1);
+
+        jdbcTemplate.update("update orders set settle_after = now() where order_status = 'DONE'");
+        SettlementReport report = settlementService.settle();
+
+        assertThat(report.settledOrders()).isEqualTo(1);
+        assertThat(report.remainingOrders()).isZero();
+        for (long orderId = 1001; orderId <= 1005; orderId++)
+            assertThat(ordersService.findById(orderId).getOrderStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from ledger_entry where reference = 'order:1001'", Long.class)).isEqualTo(2);
+    }
+
+    @DisplayName("JUnit test for settle method resuming from a checkpoint")
+    @Test
+    @Order(3)
+    void settle_from_checkpoint() {
+        jdbcTemplate.update("update orders set order_status = 'DONE' where id in (1006, 1007)");
+        jdbcTemplate.update("insert into settlement_checkpoint (id, partition_number, lower_bound, upper_bound, " +
+                "last_order_id, settled_orders, completed) values (1001, 0, 1005, 1007, 1006, 1, false)");
+        walletService.deposit(customer, 200_000L, "settlement-test:3");
+
+        SettlementReport report = settlementService.settle();
+
+        assertThat(report.partitions()).isEqualTo(1);
+        assertThat(report.settledOrders()).isEqualTo(1);
+        assertThat(ordersService.findById(1006L).getOrderStatus()).isEqualTo(OrderStatus.DONE);
+        assertThat(ordersService.findById(1007L).getOrderStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(jdbcTemplate.queryForObject(
+                "select completed from settlement_checkpoint where id = 1001", Boolean.class)).isTrue();
+        assertThat(jdbcTemplate.queryForObject("select sum(amount) from ledger_entry", Long.class)).isZero();
+    }
+}
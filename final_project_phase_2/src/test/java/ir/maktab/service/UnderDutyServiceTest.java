@@ -1,5 +1,6 @@
 package ir.maktab.service;
 
+import ir.maktab.dto.UnderDutyView;
 import ir.maktab.entity.Duty;
 import ir.maktab.entity.UnderDuty;
 import ir.maktab.exceptions.UnderDutyExistException;
@@ -71,9 +72,9 @@ class UnderDutyServiceTest {
     @Test
     @Order(3)
     void findAll_by_duty_id() {
-        List<UnderDuty> underDuties = underDutyService.findAllByDutyId(2L);
+        List<UnderDutyView> underDuties = underDutyService.findAllByDutyId(2L);
 
-        assertThat(underDuties).isNotEmpty();
+        assertThat(underDuties).isNotEmpty().allSatisfy(underDuty -> assertThat(underDuty.dutyId()).isEqualTo(2L));
     }
 
     @DisplayName("JUnit test for findById method")
@@ -105,4 +106,31 @@ class UnderDutyServiceTest {
         assertThat(updatedKitchenAppliances.getBasePrice()).isEqualTo(650_000L);
         assertThat(updatedHouseSpraying.getExplanation()).isEqualTo("Eliminating vermin at home");
     }
-}
\ No newline at end of file
+
+    @DisplayName("JUnit test for updateBasePrice method")
+    @Test
+    @Order(6)
+    void updateBasePrice() {
+        underDutyService.findViewById(1);
+
+        underDutyService.updateBasePrice(1L, 700_000L);
+        assertThat(underDutyService.findViewById(1).basePrice()).isEqualTo(700_000L);
+
+        underDutyService.updateBasePrice(1L, 650_000L);
+        assertThat(underDutyService.findViewById(1).basePrice()).isEqualTo(650_000L);
+
+        assertThatThrownBy(() -> underDutyService.updateBasePrice(56L, 700_000L))
+                .isInstanceOf(UnderDutyNotFoundException.class)
+                .hasMessageContaining("no under duty found with this ID.");
+    }
+
+    @DisplayName("JUnit test for search method")
+    @Test
+    @Order(7)
+    void search() {
+        assertThat(underDutyService.search("kitch", 10)).extracting(UnderDuty::getName).containsExactly("Kitchen Appliances");
+        assertThat(underDutyService.search("REPAIR kitchen", 10)).extracting(UnderDuty::getName).containsExactly("Kitchen Appliances");
+        assertThat(underDutyService.search("vermin", 10)).extracting(UnderDuty::getName).containsExactly("House Spraying");
+        assertThat(underDutyService.search("insects", 10)).isEmpty();
+    }
+}
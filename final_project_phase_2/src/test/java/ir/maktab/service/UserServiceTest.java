@@ -68,11 +68,12 @@ class UserServiceTest {
     @Test
     @Order(3)
     void login() {
-        boolean loggedInCustomerUser = userService.login(customerUser.getEmail(), customerUser.getPassword());
-        boolean loggedInExpertUser = userService.login(expertUser.getEmail(), expertUser.getPassword());
+        String customerToken = userService.login(customerUser.getEmail(), customerUser.getPassword());
+        String expertToken = userService.login(expertUser.getEmail(), expertUser.getPassword());
 
-        assertThat(loggedInCustomerUser).isTrue();
-        assertThat(loggedInExpertUser).isTrue();
+        assertThat(customerToken).isNotEqualTo(expertToken);
+        assertThat(userService.currentUser(customerToken).email()).isEqualTo(customerUser.getEmail());
+        assertThat(userService.currentUser(expertToken).userType()).isEqualTo(EXPERT);
     }
 
     @DisplayName("JUnit test for loginUser method with not found user")
@@ -143,11 +144,11 @@ class UserServiceTest {
     @Test
     @Order(9)
     void changePassword() {
-        User newCustomer = userService.changePassword(1L, customerUser.getEmail(), "ali12345", "ali12345");
-        User newExpert = userService.changePassword(2L, expertUser.getEmail(), "omid0000", "omid0000");
+        userService.changePassword(1L, customerUser.getEmail(), "ali12345", "ali12345");
+        userService.changePassword(2L, expertUser.getEmail(), "omid0000", "omid0000");
 
-        assertThat(newCustomer.getPassword()).isEqualTo("ali12345");
-        assertThat(newExpert.getPassword()).isEqualTo("omid0000");
+        assertThat(userService.findById(1L).getPassword()).isEqualTo("ali12345");
+        assertThat(userService.findById(2L).getPassword()).isEqualTo("omid0000");
     }
 
     @DisplayName("JUnit test for changePassword method with password not match")
@@ -175,4 +176,17 @@ class UserServiceTest {
                 .isInstanceOf(WrongUserEmailException.class)
                 .hasMessageContaining("the email entered does not belong to you.");
     }
-}
\ No newline at end of file
+
+    @DisplayName("JUnit test for logout method")
+    @Test
+    @Order(12)
+    void logout() {
+        String token = userService.login(customerUser.getEmail(), "ali12345");
+
+        userService.logout(token);
+
+        assertThatThrownBy(() -> userService.currentUser(token))
+                .isInstanceOf(SessionExpiredException.class)
+                .hasMessageContaining("your session has expired, please login again.");
+    }
+}
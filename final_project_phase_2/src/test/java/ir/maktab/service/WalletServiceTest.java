@@ -0,0 +1,158 @@
+package ir.maktab.service;
+
+import ir.maktab.dto.WalletAccount;
+import ir.maktab.exceptions.DuplicatePostingException;
+import ir.maktab.exceptions.InsufficientBalanceException;
+import ir.maktab.repository.BalanceSnapshotRepository;
+import ir.maktab.repository.CustomerRepository;
+import ir.maktab.repository.ExpertRepository;
+import ir.maktab.repository.LedgerEntryRepository;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+
+@SpringBootTest(properties = "app.wallet.snapshot-interval=5")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class WalletServiceTest {
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private BalanceSnapshotRepository balanceSnapshotRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ExpertRepository expertRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final WalletAccount customer = WalletAccount.customer(1L);
+
+    private final WalletAccount expert = WalletAccount.expert(1L);
+
+    @DisplayName("JUnit test for the opening balances posted from validity")
+    @Test
+    @Order(1)
+    void opening_balances() {
+        assertThat(walletService.balance(customer)).isEqualTo(1_000_000L);
+        assertThat(walletService.balance(expert)).isEqualTo(100_000L);
+        assertThat(walletService.postOpeningBalances()).isZero();
+        walletService.open(customer, 1_000_000L);
+        assertThat(walletService.balance(customer)).isEqualTo(1_000_000L);
+
+        walletService.withdraw(customer, 1_000_000L, "opening-test:customer");
+        walletService.withdraw(expert, 100_000L, "opening-test:expert");
+    }
+
+    @DisplayName("JUnit test for deposit method")
+    @Test
+    @Order(2)
+    void deposit() {
+        long system = walletService.systemBalance();
+        walletService.deposit(customer, 1000L, "deposit:1");
+
+        assertThat(walletService.balance(customer)).isEqualTo(1000L);
+        assertThat(walletService.systemBalance()).isEqualTo(system - 1000L);
+        assertThat(jdbcTemplate.queryForObject("select count(distinct account_id) from ledger_entry " +
+                "where account_type = 'SYSTEM'", Long.class)).isGreaterThan(1);
+    }
+
+    @DisplayName("JUnit test for settle method")
+    @Test
+    @Order(3)
+    void settle() {
+        walletService.settle(1L, 1L, 1L, 400L);
+
+        assertThat(walletService.balance(customer)).isEqualTo(600L);
+        assertThat(walletService.balance(expert)).isEqualTo(400L);
+    }
+
+    @DisplayName("JUnit test for settle method with a used reference")
+    @Test
+    @Order(4)
+    void settle_twice() {
+        assertThatThrownBy(() -> walletService.settle(1L, 1L, 1L, 400L))
+                .isInstanceOf(DuplicatePostingException.class)
+                .hasMessageContaining("order:1");
+        assertThat(walletService.balance(customer)).isEqualTo(600L);
+    }
+
+    @DisplayName("JUnit test for transfer method with insufficient balance")
+    @Test
+    @Order(5)
+    void transfer_with_insufficient_balance() {
+        assertThatThrownBy(() -> walletService.transfer(customer, expert, 601L, "transfer:1"))
+                .isInstanceOf(InsufficientBalanceException.class)
+                .hasMessageContaining("the balance of this account is not enough.");
+        assertThat(walletService.balance(expert)).isEqualTo(400L);
+    }
+
+    @DisplayName("JUnit test for concurrent transfer calls")
+    @Test
+    @Order(6)
+    void transfer_concurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                int n = i;
+                futures.add(executor.submit(() -> {
+                    if (n % 2 == 0)
+                        walletService.transfer(customer, expert, 10L, "concurrent:" + n);
+                    else
+                        walletService.transfer(expert, customer, 10L, "concurrent:" + n);
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(walletService.balance(customer)).isEqualTo(600L);
+        assertThat(walletService.balance(expert)).isEqualTo(400L);
+        assertThat(jdbcTemplate.queryForObject("select sum(amount) from ledger_entry", Long.class)).isZero();
+    }
+
+    @DisplayName("JUnit test for balance method after a restart")
+    @Test
+    @Order(7)
+    void balance_from_snapshot() {
+        Long snapshots = jdbcTemplate.queryForObject(
+                "select count(*) from balance_snapshot where account_type = 'CUSTOMER' and account_id = 1", Long.class);
+        Long balance = jdbcTemplate.queryForObject(
+                "select balance from balance_snapshot where account_type = 'CUSTOMER' and account_id = 1 and sequence_number = 5",
+                Long.class);
+        WalletService restarted = new WalletService(ledgerEntryRepository, balanceSnapshotRepository,
+                customerRepository, expertRepository, transactionManager, 5, 500, 16, 2, 1);
+
+        assertThat(snapshots).isEqualTo(8);
+        assertThat(balance).isNotNull();
+        assertThat(restarted.balance(customer)).isEqualTo(600L);
+        // keeps one balance, so reading the expert's drops the customer's and it is loaded again
+        assertThat(restarted.balance(expert)).isEqualTo(walletService.balance(expert));
+        assertThat(restarted.balance(customer)).isEqualTo(600L);
+    }
+}
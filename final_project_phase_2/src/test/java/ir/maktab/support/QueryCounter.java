@@ -0,0 +1,97 @@
+package ir.maktab.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Records the SQL statements Hibernate prepares on the calling thread, so a test can hold a service
+ * call to a statement budget. A JDBC batch is prepared once and counts as one statement. Registered as
+ * the statement inspector of the session factory in the test {@code application.properties}.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> RECORDING = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = RECORDING.get();
+        if (statements != null)
+            statements.add(sql);
+        return sql;
+    }
+
+    /**
+     * @return the statements {@code call} issued, in order
+     */
+    public static List<String> record(Runnable call) {
+        List<String> outer = RECORDING.get();
+        List<String> statements = new ArrayList<>();
+        RECORDING.set(statements);
+        try {
+            call.run();
+        } finally {
+            RECORDING.set(outer);
+            if (outer != null)
+                outer.addAll(statements);
+        }
+        return statements;
+    }
+
+    /**
+     * Fails when {@code call} issues more than {@code budget} statements, listing them with how often
+     * each one ran, so an N+1 shows up as the same select repeated.
+     */
+    public static <T> T withinBudget(int budget, Supplier<T> call) {
+        List<T> result = new ArrayList<>(1);
+        withinBudget(budget, () -> {
+            result.add(call.get());
+        });
+        return result.get(0);
+    }
+
+    public static void withinBudget(int budget, Runnable call) {
+        List<String> statements = record(call);
+        assertThat(statements.size())
+                .as(() -> "statements issued, budget " + budget + ":\n" + describe(statements))
+                .isLessThanOrEqualTo(budget);
+    }
+
+    /**
+     * Fails when {@code call} issues the same select more than once, the signature of an association
+     * loaded row by row.
+     */
+    public static <T> T withoutRepeatedSelects(Supplier<T> call) {
+        List<T> result = new ArrayList<>(1);
+        List<String> statements = record(() -> result.add(call.get()));
+        assertThat(repeatedSelects(statements))
+                .as(() -> "repeated selects:\n" + describe(statements))
+                .isEmpty();
+        return result.get(0);
+    }
+
+    public static Map<String, Long> repeatedSelects(List<String> statements) {
+        return statements.stream()
+                .filter(sql -> sql.stripLeading().regionMatches(true, 0, "select", 0, 6))
+                .collect(Collectors.groupingBy(sql -> sql, LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static String describe(List<String> statements) {
+        return statements.stream()
+                .collect(Collectors.groupingBy(sql -> sql, LinkedHashMap::new, Collectors.counting()))
+                .entrySet().stream()
+                .map(entry -> entry.getValue() + " x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,46 @@
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1000, '1 day', 90000, '2023-02-20 11:00:00.000000', 1);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1001, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1001, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'DONE', 100000, 0, 1, 1, 1001, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1001, 1000);
+insert into orders_offers (orders_id, offers_id)
+values (1001, 1001);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1002, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1002, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'DONE', 100000, 0, 1, 1, 1002, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1002, 1002);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1003, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1003, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'DONE', 100000, 0, 1, 1, 1003, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1003, 1003);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1004, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1004, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'DONE', 100000, 0, 1, 1, 1004, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1004, 1004);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1005, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1005, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'DONE', 100000, 0, 1, 1, 1005, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1005, 1005);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1006, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1006, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'STARTED', 100000, 0, 1, 1, 1006, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1006, 1006);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1007, '1 day', 100000, '2023-02-20 11:30:00.000000', 1);
+insert into orders (id, address, date_and_time, description, order_status, proposed_price, version, customer_id, expert_id, accepted_offer_id, under_duty_id)
+values (1007, 'guilan, rasht', '2023-02-20 10:22:00.000000', 'Repairing a washing machine', 'STARTED', 100000, 0, 1, 1, 1007, 1);
+insert into orders_offers (orders_id, offers_id)
+values (1007, 1007);
@@ -1,6 +1,7 @@
-insert into offers (duration_of_work, proposed_price, suggested_time, expert_id)
-values ('1 day', 700000, '2023-02-20 11:30:00.000000', 1);
-insert into offers (duration_of_work, proposed_price, suggested_time, expert_id)
-values ('3 day', 750000, '2023-02-21 11:30:00.000000', 1);
-insert into offers (duration_of_work, proposed_price, suggested_time, expert_id)
-values ('6 day', 800000, '2023-03-21 11:30:00.000000', 1);
\ No newline at end of file
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (1, '1 day', 700000, now() + interval '30 days 1 hour', 1);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (2, '3 day', 750000, now() + interval '31 days 1 hour', 1);
+insert into offers (id, duration_of_work, proposed_price, suggested_time, expert_id)
+values (3, '6 day', 800000, now() + interval '59 days 1 hour', 1);
+select setval('offers_seq', 4, false);